@@ -0,0 +1,10 @@
+/*
+ * Orients a surface for a point in simulation time. The engine calls apply once
+ * per simulated step, in time order, including steps whose frames are skipped, so
+ * an animation may keep state between calls (easing towards a target, composing
+ * an incremental spin). Animations of a periodic Mode must be a pure function of
+ * time, since their frames are pre-rendered out of order on several threads.
+ */
+public interface Animation {
+    void apply(Surface surface, double time);
+}
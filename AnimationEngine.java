@@ -0,0 +1,353 @@
+import java.util.function.Supplier;
+
+/*
+ * The one animation loop behind every terminal mode. Each frame it fits the canvas
+ * to the terminal, advances the mode's Animation, renders through its Renderer and
+ * writes the frame as a delta (or, for PIPELINED, hands a full redraw to a writer
+ * thread), with a status line underneath. A FrameScheduler paces the loop; when it
+ * reports skipped frames the animation still sees every step. Periodic modes are
+ * rendered once into a FrameCache and replayed.
+ */
+public class AnimationEngine {
+
+    public enum Mode {
+        ULTRA_SMOOTH(60.0, 1.0 / 60, 0, false,
+                     () -> SmoothASCIIRotation::applyUltraSmoothRotation, AnimationEngine::renderClassic),
+        // Full redraws written by a separate thread, which drops frames the terminal cannot keep up with
+        PIPELINED(60.0, 1.0 / 60, 0, true,
+                  () -> SmoothASCIIRotation::applyUltraSmoothRotation, AnimationEngine::renderClassic),
+        INTERPOLATED(1000.0 / 16, 0.016, 0, false,
+                     SmoothASCIIRotation::interpolatedAnimation, AnimationEngine::renderClassic),
+        HIGH_FPS_WAVE(100.0, 0.01, 0, false,
+                      () -> SmoothASCIIRotation::applyHighFPSWaveRotation,
+                      (canvas, surface, time) -> canvas.renderOptimizedWaveASCII(surface, time)),
+        CLASSIC(1000.0 / 120, 0.1, 0, false,
+                () -> ASCIIRotationVariants::applyClassicRotation,
+                (canvas, surface, time) -> canvas.renderASCII3D(surface, ASCIIRotationVariants.DEPTH_CHARS_CLASSIC)),
+        // The three Euler angles (0.7, 1, 0.4 times the angle) return to whole turns after 400 steps of pi/20
+        DENSE(1000.0 / 80, Math.PI / 20, 400, false,
+              () -> ASCIIRotationVariants::applyDenseRotation,
+              (canvas, surface, time) -> canvas.renderASCII3D(surface, ASCIIRotationVariants.DEPTH_CHARS_DENSE)),
+        WAVE_PATTERN(1000.0 / 60, 0.08, 0, false,
+                     () -> ASCIIRotationVariants::applyWavePatternRotation,
+                     (canvas, surface, time) -> canvas.renderWaveASCII(surface, time)),
+        SPIRAL(1000.0 / 110, 0.15, 0, false,
+               () -> ASCIIRotationVariants::applySpiralRotation,
+               (canvas, surface, time) -> canvas.renderSpiralASCII(surface, time)),
+        // Steps by pi/30 through [0, 2*pi], both ends included, then starts over
+        INFINITE(10.0, Math.PI / 30, 61, false,
+                 () -> InfiniteRotationDemo::applyInfiniteRotation, AnimationEngine::renderProjection),
+        INFINITE_PATTERN(1000.0 / 80, 0.1, 0, false,
+                         () -> InfiniteRotationDemo::applyPatternRotation, AnimationEngine::renderProjection),
+        BOUNCING(1000.0 / 60, 0.05, 0, false,
+                 InfiniteRotationDemo::bouncingAnimation, AnimationEngine::renderProjection);
+
+        final double framesPerSecond;
+        // Simulation time per frame
+        final double timeStep;
+        // Frames before the animation repeats exactly; 0 when it never does
+        final int period;
+        final boolean pipelined;
+        private final Supplier<Animation> animations;
+        private final Renderer renderer;
+
+        Mode(double framesPerSecond, double timeStep, int period, boolean pipelined,
+             Supplier<Animation> animations, Renderer renderer) {
+            this.framesPerSecond = framesPerSecond;
+            this.timeStep = timeStep;
+            this.period = period;
+            this.pipelined = pipelined;
+            this.animations = animations;
+            this.renderer = renderer;
+        }
+
+        // A fresh animation, so stateful ones start from their initial orientation
+        public Animation newAnimation() {
+            return animations.get();
+        }
+
+        public FrameBuffer render(SurfaceRenderer canvas, Surface surface, double time) {
+            return renderer.render(canvas, surface, time);
+        }
+
+        // Simulation time of frame n; periodic modes wrap
+        public double timeAt(long frame) {
+            return (period > 0 ? frame % period : frame) * timeStep;
+        }
+
+        // Status line position: periodic modes step an angle through their period, not seconds
+        String progress(long frame) {
+            return period > 0 ? String.format("Step: %d/%d", frame % period + 1, period)
+                              : String.format("Time: %.1fs", timeAt(frame));
+        }
+
+        // Accepts the constant name in any case, with '-' for '_'
+        public static Mode parse(String name) {
+            return valueOf(name.toUpperCase().replace('-', '_'));
+        }
+    }
+
+    // Draws one frame into the canvas, for loops that are not a single-surface Mode
+    public interface FrameRenderer {
+        FrameBuffer render(SurfaceRenderer canvas, double time);
+    }
+
+    // One status line below the frame, plus the metrics overlay when enabled
+    private static final int STATUS_ROWS = 1;
+
+    private final SurfaceRenderer renderer;
+
+    // Only changed cells are re-emitted between frames
+    private final DeltaFrameEncoder frameEncoder = new DeltaFrameEncoder();
+    private final StringBuilder frameOutput = new StringBuilder();
+
+    public AnimationEngine(SurfaceRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    // Renderer settings such as shading or a camera apply to every mode run here
+    public SurfaceRenderer getRenderer() {
+        return this.renderer;
+    }
+
+    public void run(Mode mode, Surface surface) {
+        System.out.println(mode + " - Press Ctrl+C to stop");
+        Animation animation = mode.newAnimation();
+        FrameScheduler scheduler = new FrameScheduler(mode.framesPerSecond);
+        FrameCache cache = mode.period > 0 ? new FrameCache(mode.period, FrameCache.DEFAULT_MAX_BYTES) : null;
+        // Renders misses, e.g. steps across skipped frames, on this thread
+        FrameCache.FrameSource frames = frameSource(mode, animation, surface, renderer);
+        OutputStats stats = new OutputStats();
+        long frame = 0;
+        long shown = -1;
+        long missed = 0;
+
+        frameEncoder.reset();
+        System.out.print("\033[?25l");
+
+        FrameBuffer canvas = renderer.getFrameBuffer();
+        try (FramePipeline pipeline = mode.pipelined
+                ? new FramePipeline(FrameWriter.stdout(), (canvas.width + 1) * canvas.height + 64) : null) {
+            while (true) {
+                stats.sample(pipeline);
+                // Delta frames redraw in full after a size change by themselves; the others are told
+                boolean resized = renderer.fitToTerminal(STATUS_ROWS);
+                double time = mode.timeAt(frame);
+
+                if (cache != null) {
+                    if (resized || shown < 0) {
+                        cache.clear();
+                        cache.prerender(() -> frameSource(mode, mode.newAnimation(), copyOf(surface),
+                                                          new SurfaceRenderer(renderer)), true);
+                        shown = -1;
+                    }
+                    printCached(cache.step((int) shown, (int) frame, frames));
+                    printStatus(mode.toString(), mode.progress(frame), null, stats, scheduler);
+                } else {
+                    animation.apply(surface, time);
+                    FrameBuffer screen = mode.render(renderer, surface, time);
+                    if (pipeline != null) {
+                        publish(pipeline, screen, resized, stats, scheduler, mode.progress(frame));
+                    } else {
+                        printFrame(screen);
+                        printStatus(mode.toString(), mode.progress(frame), null, stats, scheduler);
+                    }
+                }
+
+                int steps = scheduler.awaitNextFrame();
+                missed = adjustDetail(scheduler, missed);
+                if (cache == null) {
+                    for (int step = 1; step < steps; step++) {
+                        animation.apply(surface, mode.timeAt(frame + step));
+                    }
+                }
+                shown = frame;
+                frame = mode.period > 0 ? (frame + steps) % mode.period : frame + steps;
+            }
+        } catch (InterruptedException e) {
+            System.out.print("\033[?25h");
+        }
+    }
+
+    /*
+     * Runs frames that are not a single surface, such as a Scene, with the same output
+     * and pacing as a mode without a cache or pipeline. The canvas is fitted to the
+     * terminal before frames draws, so it can lay out for the current size. details,
+     * when not null, is appended to the status line.
+     */
+    public void run(String name, double framesPerSecond, double timeStep,
+                    FrameRenderer frames, Supplier<String> details) {
+        System.out.println(name + " - Press Ctrl+C to stop");
+        FrameScheduler scheduler = new FrameScheduler(framesPerSecond);
+        OutputStats stats = new OutputStats();
+        long frame = 0;
+        long missed = 0;
+
+        frameEncoder.reset();
+        System.out.print("\033[?25l");
+
+        try {
+            while (true) {
+                stats.sample(null);
+                renderer.fitToTerminal(STATUS_ROWS);
+                double time = frame * timeStep;
+                printFrame(frames.render(renderer, time));
+                printStatus(name, String.format("Time: %.1fs", time), details, stats, scheduler);
+
+                frame += scheduler.awaitNextFrame();
+                missed = adjustDetail(scheduler, missed);
+            }
+        } catch (InterruptedException e) {
+            System.out.print("\033[?25h");
+        }
+    }
+
+    /*
+     * Runs the mode for network viewers instead of the terminal. Frames keep the
+     * canvas size, since viewers' terminals are unknown, and are published to the
+     * server, which never blocks the loop. A status line, refreshed once a second,
+     * shows the viewers and how many frames backpressure dropped for them.
+     */
+    public void stream(Mode mode, Surface surface, FrameServer server) throws InterruptedException {
+        Animation animation = mode.newAnimation();
+        FrameScheduler scheduler = new FrameScheduler(mode.framesPerSecond);
+        long frame = 0;
+        long missed = 0;
+        long lastStatus = 0;
+
+        while (true) {
+            double time = mode.timeAt(frame);
+            animation.apply(surface, time);
+            server.publish(mode.render(renderer, surface, time));
+            FrameMetrics.endFrame();
+
+            long now = System.nanoTime();
+            if (now - lastStatus >= 1_000_000_000L) {
+                System.out.printf("\r%s | Clients: %d | Published: %d | Dropped: %d | Missed: %d",
+                                  mode, server.getClientCount(), server.getPublishedFrames(),
+                                  server.getDroppedFrames(), scheduler.getMissedDeadlines());
+                lastStatus = now;
+            }
+
+            int steps = scheduler.awaitNextFrame();
+            missed = adjustDetail(scheduler, missed);
+            for (int step = 1; step < steps; step++) {
+                animation.apply(surface, mode.timeAt(frame + step));
+            }
+            frame += steps;
+        }
+    }
+
+    // Lets an adaptive renderer trade detail for the frame budget; returns the new missed count
+    private long adjustDetail(FrameScheduler scheduler, long missed) {
+        long now = scheduler.getMissedDeadlines();
+        renderer.adjustDetail(now > missed);
+        return now;
+    }
+
+    private static FrameBuffer renderClassic(SurfaceRenderer canvas, Surface surface, double time) {
+        return canvas.renderOptimizedASCII3D(surface, SmoothASCIIRotation.DEPTH_CHARS_CLASSIC);
+    }
+
+    private static FrameBuffer renderProjection(SurfaceRenderer canvas, Surface surface, double time) {
+        return canvas.render3DProjection(surface);
+    }
+
+    private static FrameCache.FrameSource frameSource(Mode mode, Animation animation,
+                                                      Surface surface, SurfaceRenderer canvas) {
+        return frame -> {
+            double time = mode.timeAt(frame);
+            animation.apply(surface, time);
+            return mode.render(canvas, surface, time);
+        };
+    }
+
+    // Same size, glyph and position, for a pre-render worker to orient independently
+    private static Surface copyOf(Surface surface) {
+        Vector position = surface.getVector();
+        return new Surface(new Vector(position.i, position.j, position.k),
+                           surface.getCharacter(), surface.getWidth());
+    }
+
+    /*
+     * Writes the frame as a delta from the last one this engine wrote, with the
+     * metrics overlay, and ends the frame's metrics. For callers drawing frames
+     * outside run().
+     */
+    public void printFrame(FrameBuffer frame) {
+        frameOutput.setLength(0);
+        frameEncoder.encode(frame, frameOutput);
+        FrameMetrics.appendOverlay(frameOutput);
+        FrameWriter.stdout().write(frameOutput);
+        FrameMetrics.endFrame();
+    }
+
+    // Cached output is already encoded; only the overlay is built per frame
+    private void printCached(byte[] frame) {
+        FrameWriter.stdout().write(frame);
+        frameOutput.setLength(0);
+        FrameMetrics.appendOverlay(frameOutput);
+        if (frameOutput.length() > 0) {
+            FrameWriter.stdout().write(frameOutput);
+        }
+        FrameMetrics.endFrame();
+    }
+
+    private static void printStatus(String name, String progress, Supplier<String> details,
+                                    OutputStats stats, FrameScheduler scheduler) {
+        System.out.printf("\r%s | FPS: %.1f | %s | Frame: %d bytes | Missed: %d%s",
+                          name, stats.renderFPS, progress, FrameWriter.stdout().getLastFrameBytes(),
+                          scheduler.getMissedDeadlines(), details != null ? details.get() : "");
+    }
+
+    private static void publish(FramePipeline pipeline, FrameBuffer screen, boolean resized,
+                                OutputStats stats, FrameScheduler scheduler, String progress) {
+        long buildStart = FrameMetrics.start();
+        StringBuilder frame = pipeline.backBuffer();
+        // Frames are drawn over the previous one, so a resize needs one full clear
+        frame.append(resized ? "\033[2J\033[H" : "\033[H");
+        screen.appendTo(frame);
+        FrameMetrics.appendOverlay(frame);
+        frame.append(String.format("\rRender FPS: %.1f | Write FPS: %.1f | Dropped: %d | Missed: %d | %s\033[K",
+                                   stats.renderFPS, stats.writeFPS, pipeline.getDroppedFrames(),
+                                   scheduler.getMissedDeadlines(), progress));
+        FrameMetrics.record(FrameMetrics.Stage.BUILD, buildStart);
+        pipeline.publish();
+        FrameMetrics.endFrame();
+    }
+
+    /*
+     * Frame rates sampled once a second, so they are averages over the same window
+     * rather than the jitter of a single frame. Without a pipeline the rendered and
+     * written frames are the same.
+     */
+    private static class OutputStats {
+        private long windowStart = System.nanoTime();
+        private long windowFrames = 0;
+        private long lastPublished = 0;
+        private long lastWritten = 0;
+        double renderFPS = 0;
+        double writeFPS = 0;
+
+        void sample(FramePipeline pipeline) {
+            long now = System.nanoTime();
+            long elapsed = now - windowStart;
+            if (elapsed >= 1_000_000_000L) {
+                if (pipeline != null) {
+                    long published = pipeline.getPublishedFrames();
+                    long written = pipeline.getWrittenFrames();
+                    renderFPS = (published - lastPublished) * 1e9 / elapsed;
+                    writeFPS = (written - lastWritten) * 1e9 / elapsed;
+                    lastPublished = published;
+                    lastWritten = written;
+                } else {
+                    renderFPS = windowFrames * 1e9 / elapsed;
+                    writeFPS = renderFPS;
+                }
+                windowFrames = 0;
+                windowStart = now;
+            }
+            windowFrames++;
+        }
+    }
+}
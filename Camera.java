@@ -0,0 +1,58 @@
+/*
+ * A pinhole camera looking down +z, the direction the renderers already treat as
+ * away from the viewer. Screen coordinates come out in cells relative to the
+ * canvas centre, so a point at depth focalLength in front of the camera keeps the
+ * same size as under the orthographic projection.
+ */
+public final class Camera {
+    final double x;
+    final double y;
+    final double z;
+    final double focalLength;
+    // Points closer than this in view depth are dropped
+    final double near;
+
+    // Projection * view, fixed for the camera's lifetime
+    private final Matrix4 viewProjection;
+
+    public Camera(Vector position, double focalLength, double near) {
+        if (focalLength <= 0) {
+            throw new IllegalArgumentException("focalLength must be positive");
+        }
+        if (near <= 0) {
+            throw new IllegalArgumentException("near must be positive");
+        }
+        this.x = position.i;
+        this.y = position.j;
+        this.z = position.k;
+        this.focalLength = focalLength;
+        this.near = near;
+
+        // w takes the view depth, so the divide scales x and y by focalLength / depth.
+        // The z row also keeps the view depth, which is what the depth buffer compares.
+        Matrix4 projection = Matrix4.of(
+            focalLength, 0, 0, 0,
+            0, focalLength, 0, 0,
+            0, 0, 1, 0,
+            0, 0, 1, 0
+        );
+        this.viewProjection = projection.multiply(Matrix4.translation(-x, -y, -z));
+    }
+
+    // Sits on the -z axis; the z = 0 plane projects at its orthographic size
+    public static Camera atDistance(double distance) {
+        return new Camera(new Vector(0, 0, -distance), distance, 1.0);
+    }
+
+    public Matrix4 getViewProjection() {
+        return this.viewProjection;
+    }
+
+    public double getFocalLength() {
+        return this.focalLength;
+    }
+
+    public double getNear() {
+        return this.near;
+    }
+}
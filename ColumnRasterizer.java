@@ -0,0 +1,101 @@
+public final class ColumnRasterizer {
+
+    private ColumnRasterizer() {
+    }
+
+    /*
+     * Rotates and z-tests the layered slab one (i, j) column at a time, for columns
+     * fromColumn up to toColumn, with the orthographic projection of the classic
+     * renderer. The z-buffer ends up with the lowest (depth, vertex index) of every
+     * cell, so of the layers a column puts into one cell only that front-most one is
+     * tested; the layers hidden behind it never touch the buffers. Screen position
+     * and depth are monotonic along a column, so when its first and last layers land
+     * in the same cell the whole column does, and only the front end is projected.
+     * The result is identical to z-testing every vertex in order. The transform is
+     * laid out as Surface.copyTransform writes it. Vertex n is drawn as
+     * depthChars[min(|charIndex[n]|, depthChars.length - 1)].
+     */
+    static void rasterizeColumns(double[] transform, SurfaceMesh mesh, int fromColumn, int toColumn,
+                                 int[] charIndex, char[] depthChars,
+                                 char[] screen, float[] depthBuffer, int screenWidth, int screenHeight) {
+        double m00 = transform[0], m01 = transform[1], m02 = transform[2];
+        double m10 = transform[3], m11 = transform[4], m12 = transform[5];
+        double m20 = transform[6], m21 = transform[7], m22 = transform[8];
+
+        double[] xs = mesh.vertices.x;
+        double[] ys = mesh.vertices.y;
+        double[] zs = mesh.vertices.z;
+        int columnSize = mesh.columnSize;
+
+        for (int column = fromColumn; column < toColumn; column++) {
+            int first = column * columnSize;
+            int last = first + columnSize - 1;
+
+            // Grouped as Surface.rotateRange evaluates them, so every coordinate is bit-identical
+            double x = xs[first];
+            double y = ys[first];
+            double baseX = m00 * x + m01 * y;
+            double baseY = m10 * x + m11 * y;
+            double baseZ = m20 * x + m21 * y;
+
+            int cell = cellOf(baseX + m02 * zs[first], baseY + m12 * zs[first], screenWidth, screenHeight);
+            if (cell >= 0 && cell == cellOf(baseX + m02 * zs[last], baseY + m12 * zs[last],
+                                            screenWidth, screenHeight)) {
+                // Nearest end first; equal depths go to the lowest vertex, as in the z-buffer
+                int front = first;
+                if (m22 < 0) {
+                    front = last;
+                    float z = (float)(baseZ + m22 * zs[last]);
+                    while (front > first && (float)(baseZ + m22 * zs[front - 1]) == z) {
+                        front--;
+                    }
+                }
+                plot(cell, (float)(baseZ + m22 * zs[front]), front, charIndex, depthChars, screen, depthBuffer);
+                continue;
+            }
+
+            // Layers crossing cells: keep the front-most of each run that shares a cell
+            int runCell = -1;
+            int runVertex = first;
+            float runDepth = 0;
+            for (int n = first; n <= last; n++) {
+                double z = zs[n];
+                cell = cellOf(baseX + m02 * z, baseY + m12 * z, screenWidth, screenHeight);
+                float depth = (float)(baseZ + m22 * z);
+                if (cell != runCell) {
+                    if (runCell >= 0) {
+                        plot(runCell, runDepth, runVertex, charIndex, depthChars, screen, depthBuffer);
+                    }
+                    runCell = cell;
+                    runDepth = depth;
+                    runVertex = n;
+                } else if (depth < runDepth) {
+                    runDepth = depth;
+                    runVertex = n;
+                }
+            }
+            if (runCell >= 0) {
+                plot(runCell, runDepth, runVertex, charIndex, depthChars, screen, depthBuffer);
+            }
+        }
+    }
+
+    // Index of the cell a rotated point falls in, or -1 when it is off screen
+    private static int cellOf(double x, double y, int screenWidth, int screenHeight) {
+        int screenX = (int)(x + screenWidth/2);
+        int screenY = (int)(y + screenHeight/2);
+        if (screenX >= 0 && screenX < screenWidth &&
+            screenY >= 0 && screenY < screenHeight) {
+            return screenY * screenWidth + screenX;
+        }
+        return -1;
+    }
+
+    private static void plot(int cell, float z, int n, int[] charIndex, char[] depthChars,
+                             char[] screen, float[] depthBuffer) {
+        if (z < depthBuffer[cell]) {
+            depthBuffer[cell] = z;
+            screen[cell] = depthChars[Math.min(Math.abs(charIndex[n]), depthChars.length - 1)];
+        }
+    }
+}
@@ -0,0 +1,78 @@
+public class DeltaFrameEncoder {
+    // Reprinting a few unchanged cells is cheaper than a cursor-forward sequence
+    private static final int MAX_GAP = 4;
+
+    private char[] previous = new char[0];
+    private int previousWidth = -1;
+    private int previousHeight = -1;
+
+    /*
+     * Appends the escape sequences that turn the previously emitted frame into this one.
+     * The first frame, or any frame after a size change or reset(), is a full redraw.
+     * Afterwards the cursor is left at the start of the line below the frame with the
+     * rest of the screen erased, so callers can print status lines there.
+     */
+    public void encode(FrameBuffer frame, StringBuilder out) {
+        long startNanos = FrameMetrics.start();
+        int width = frame.width;
+        int height = frame.height;
+        char[] cells = frame.chars;
+
+        if (width != previousWidth || height != previousHeight) {
+            if (previous.length < width * height) {
+                previous = new char[width * height];
+            }
+            out.append("\033[2J\033[H");
+            frame.appendTo(out);
+            System.arraycopy(cells, 0, previous, 0, width * height);
+            previousWidth = width;
+            previousHeight = height;
+        } else {
+            for (int row = 0; row < height; row++) {
+                encodeRow(cells, row, width, out);
+            }
+        }
+
+        out.append("\033[").append(height + 1).append(";1H\033[J");
+        FrameMetrics.record(FrameMetrics.Stage.BUILD, startNanos);
+    }
+
+    private void encodeRow(char[] cells, int row, int width, StringBuilder out) {
+        int base = row * width;
+        int cursorCol = -1;
+        int col = 0;
+        while (col < width) {
+            if (cells[base + col] == previous[base + col]) {
+                col++;
+                continue;
+            }
+
+            int runStart = col;
+            int runEnd = col + 1;
+            int scan = runEnd;
+            while (scan < width && scan - runEnd <= MAX_GAP) {
+                if (cells[base + scan] != previous[base + scan]) {
+                    runEnd = scan + 1;
+                }
+                scan++;
+            }
+
+            // Jump within the row relatively once the cursor is on it, absolutely otherwise
+            if (cursorCol < 0) {
+                out.append("\033[").append(row + 1).append(';').append(runStart + 1).append('H');
+            } else {
+                out.append("\033[").append(runStart - cursorCol).append('C');
+            }
+            out.append(cells, base + runStart, runEnd - runStart);
+            System.arraycopy(cells, base + runStart, previous, base + runStart, runEnd - runStart);
+            cursorCol = runEnd;
+            col = scan;
+        }
+    }
+
+    // Forces a full redraw, e.g. after something else has written to the terminal
+    public void reset() {
+        previousWidth = -1;
+        previousHeight = -1;
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/*
+ * Row-major character and depth cells for one frame. Cell (x, y) is at index
+ * y * width + x in both arrays. Renderers index the arrays directly in their inner
+ * loops, so there is no per-row indirection; the buffer is reused across frames.
+ *
+ * The arrays may be longer than width * height after a resize to a smaller size;
+ * only the first width * height cells belong to the frame.
+ */
+public class FrameBuffer {
+    // Leaves headroom below the VM's maximum array length
+    private static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    int width;
+    int height;
+    char[] chars;
+    // Smaller is nearer; cleared to Float.MAX_VALUE
+    float[] depth;
+
+    public FrameBuffer(int width, int height) {
+        checkSize(width, height);
+        this.width = width;
+        this.height = height;
+        this.chars = new char[width * height];
+        this.depth = new float[width * height];
+    }
+
+    /*
+     * Changes the frame size, keeping the arrays when they already hold enough
+     * cells. Cell contents are undefined until the next clear.
+     */
+    public void resize(int width, int height) {
+        checkSize(width, height);
+        int cells = width * height;
+        if (cells > chars.length) {
+            chars = new char[cells];
+            depth = new float[cells];
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Frame size must be positive");
+        }
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Frame too large: " + width + "x" + height);
+        }
+    }
+
+    // Arrays.fill on flat arrays is compiled to wide vector stores already
+    public void clear() {
+        int cells = width * height;
+        Arrays.fill(chars, 0, cells, ' ');
+        Arrays.fill(depth, 0, cells, Float.MAX_VALUE);
+    }
+
+    // For renderers that resolve overlaps without a depth test
+    public void clearChars() {
+        Arrays.fill(chars, 0, width * height, ' ');
+    }
+
+    public boolean matches(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    // One line per row, each terminated by '\n'
+    public void appendTo(StringBuilder output) {
+        for (int row = 0; row < height; row++) {
+            output.append(chars, row * width, width);
+            output.append('\n');
+        }
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+}
@@ -0,0 +1,166 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/*
+ * Encoded terminal output for an animation that repeats every `period` frames.
+ * An entry is the UTF-8 bytes that turn frame `from` on screen into frame `to`,
+ * exactly as DeltaFrameEncoder would emit them, so replaying a cached step costs
+ * one write. A from of -1 is a full redraw. Steady playback only needs the
+ * period steps k - 1 -> k; steps across dropped frames are encoded on demand.
+ *
+ * Entries are evicted least recently used once their bytes exceed maxBytes. The
+ * playback order is cyclic, so a cap smaller than one period evicts each step just
+ * before it is needed again and playback falls back to rendering every frame.
+ * Entries are only valid for one canvas size; clear() after a resize.
+ */
+public class FrameCache {
+    public static final long DEFAULT_MAX_BYTES = Long.getLong("rotation.cache.bytes", 64L << 20);
+
+    // Renders frame k of the animation into a canvas owned by the source
+    public interface FrameSource {
+        FrameBuffer render(int frame);
+    }
+
+    private final int period;
+    private final long maxBytes;
+    private final LinkedHashMap<Long, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+
+    // Used for steps that are not cached
+    private final DeltaFrameEncoder encoder = new DeltaFrameEncoder();
+    private final StringBuilder scratch = new StringBuilder();
+
+    public FrameCache(int period, long maxBytes) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Animation period must be positive");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.period = period;
+        this.maxBytes = maxBytes;
+    }
+
+    /*
+     * Renders every frame of the period once and caches the full redraw of frame 0
+     * and every step k - 1 -> k, wrapping from the last frame to the first. With
+     * parallel set, frames are split into one contiguous range per worker and each
+     * range gets its own source, since a source renders into a single canvas.
+     */
+    public void prerender(Supplier<FrameSource> sources, boolean parallel) {
+        int workers = parallel ? Math.min(period, Runtime.getRuntime().availableProcessors()) : 1;
+        char[][] frames = new char[period][];
+        int[] size = new int[2];
+
+        IntStream ranges = IntStream.range(0, workers);
+        (parallel ? ranges.parallel() : ranges).forEach(worker -> {
+            FrameSource source = sources.get();
+            for (int k = period * worker / workers; k < period * (worker + 1) / workers; k++) {
+                FrameBuffer frame = source.render(k);
+                frames[k] = Arrays.copyOf(frame.chars, frame.width * frame.height);
+                if (k == 0) {
+                    size[0] = frame.width;
+                    size[1] = frame.height;
+                }
+            }
+        });
+
+        // Step k - 1 -> k lands in steps[k]; the full redraw of frame 0 in steps[period]
+        byte[][] steps = new byte[period + 1][];
+        IntStream encodes = IntStream.range(0, workers);
+        (parallel ? encodes.parallel() : encodes).forEach(worker -> {
+            DeltaFrameEncoder stepEncoder = new DeltaFrameEncoder();
+            StringBuilder out = new StringBuilder();
+            FrameBuffer canvas = new FrameBuffer(size[0], size[1]);
+            for (int k = period * worker / workers; k < period * (worker + 1) / workers; k++) {
+                if (frames[k].length != frames[0].length) {
+                    throw new IllegalStateException("Frame " + k + " was rendered at a different size");
+                }
+                stepEncoder.reset();
+                System.arraycopy(frames[(k + period - 1) % period], 0, canvas.chars, 0, frames[k].length);
+                stepEncoder.encode(canvas, out);
+                out.setLength(0);
+                System.arraycopy(frames[k], 0, canvas.chars, 0, frames[k].length);
+                stepEncoder.encode(canvas, out);
+                steps[k] = out.toString().getBytes(StandardCharsets.UTF_8);
+                out.setLength(0);
+                if (k == 0) {
+                    stepEncoder.reset();
+                    stepEncoder.encode(canvas, out);
+                    steps[period] = out.toString().getBytes(StandardCharsets.UTF_8);
+                    out.setLength(0);
+                }
+            }
+        });
+
+        put(-1, 0, steps[period]);
+        for (int k = 1; k <= period; k++) {
+            put(k - 1, k % period, steps[k % period]);
+        }
+    }
+
+    /*
+     * The output that takes the screen from frame `from` (-1 when the screen holds
+     * something else) to frame `to`. A miss renders the frames with source and
+     * caches the result.
+     */
+    public byte[] step(int from, int to, FrameSource source) {
+        if (from < -1 || from >= period || to < 0 || to >= period) {
+            throw new IllegalArgumentException("No step " + from + " -> " + to + " in a period of " + period);
+        }
+        byte[] bytes = entries.get(key(from, to));
+        if (bytes != null) {
+            return bytes;
+        }
+
+        // encode() keeps a copy of the frame it was given, so one canvas serves both frames
+        encoder.reset();
+        if (from >= 0) {
+            encoder.encode(source.render(from), scratch);
+            scratch.setLength(0);
+        }
+        encoder.encode(source.render(to), scratch);
+        bytes = scratch.toString().getBytes(StandardCharsets.UTF_8);
+        scratch.setLength(0);
+        put(from, to, bytes);
+        return bytes;
+    }
+
+    public void clear() {
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    private void put(int from, int to, byte[] bytes) {
+        byte[] replaced = entries.put(key(from, to), bytes);
+        cachedBytes += bytes.length - (replaced == null ? 0 : replaced.length);
+
+        // The newest entry stays even if it alone is over the cap
+        Iterator<Map.Entry<Long, byte[]>> eldest = entries.entrySet().iterator();
+        while (cachedBytes > maxBytes && entries.size() > 1) {
+            cachedBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private long key(int from, int to) {
+        return (long)(from + 1) * period + to;
+    }
+
+    public int getPeriod() {
+        return this.period;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getCachedBytes() {
+        return this.cachedBytes;
+    }
+}
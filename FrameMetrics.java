@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Per-stage frame timing, enabled with -Drotation.metrics=true. Each reporting
+ * interval (-Drotation.metrics.interval, milliseconds, default 1000) the stage
+ * histograms are summarised into the on-screen overlay and, when
+ * -Drotation.metrics.file is set, appended to that file as a CSV row. Disabled,
+ * start() and record() do nothing.
+ */
+public class FrameMetrics {
+
+    public enum Stage {
+        ANGLE, CLEAR, TRANSFORM, RASTERIZE, BUILD, WRITE
+    }
+
+    static final String FILE_PROPERTY = "rotation.metrics.file";
+
+    public static final boolean ENABLED = Boolean.getBoolean("rotation.metrics")
+                                          || System.getProperty(FILE_PROPERTY) != null;
+
+    private static final long INTERVAL_NANOS = Long.getLong("rotation.metrics.interval", 1000L) * 1_000_000L;
+    private static final Path DUMP_FILE = System.getProperty(FILE_PROPERTY) == null
+                                          ? null : Paths.get(System.getProperty(FILE_PROPERTY));
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final LatencyHistogram[] stageHistograms = new LatencyHistogram[STAGES.length];
+    // Bytes allocated by the rendering thread per frame
+    private static final LatencyHistogram allocationHistogram = new LatencyHistogram();
+
+    private static final com.sun.management.ThreadMXBean threadBean = allocationBean();
+
+    private static long intervalStart = System.nanoTime();
+    private static long intervalFrames = 0;
+    private static long lastAllocatedBytes = -1;
+    private static boolean headerWritten = false;
+    private static String overlay = "";
+
+    static {
+        for (int n = 0; n < STAGES.length; n++) {
+            stageHistograms[n] = new LatencyHistogram();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+    // Timestamp to pass to record(); zero when metrics are disabled
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void record(Stage stage, long startNanos) {
+        if (!ENABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        synchronized (FrameMetrics.class) {
+            stageHistograms[stage.ordinal()].record(elapsed);
+        }
+    }
+
+    /*
+     * Marks the end of a frame on the rendering thread. Samples that thread's
+     * allocation counter and, once per interval, refreshes the overlay and the dump.
+     */
+    public static void endFrame() {
+        if (!ENABLED) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (FrameMetrics.class) {
+            if (threadBean != null) {
+                long allocated = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                if (lastAllocatedBytes >= 0 && allocated >= lastAllocatedBytes) {
+                    allocationHistogram.record(allocated - lastAllocatedBytes);
+                }
+                lastAllocatedBytes = allocated;
+            }
+            intervalFrames++;
+
+            if (now - intervalStart >= INTERVAL_NANOS) {
+                overlay = formatOverlay(now - intervalStart);
+                if (DUMP_FILE != null) {
+                    dump();
+                }
+                for (LatencyHistogram histogram : stageHistograms) {
+                    histogram.reset();
+                }
+                allocationHistogram.reset();
+                intervalFrames = 0;
+                intervalStart = now;
+            }
+        }
+    }
+
+    // Appends the last interval's summary below the frame; nothing when disabled
+    public static void appendOverlay(StringBuilder out) {
+        if (!ENABLED) {
+            return;
+        }
+        synchronized (FrameMetrics.class) {
+            out.append(overlay);
+        }
+    }
+
+    // Terminal rows taken by the overlay below each frame
+    public static int overlayLines() {
+        return ENABLED ? 2 : 0;
+    }
+
+    private static String formatOverlay(long intervalNanos) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%.1f frames/s | p50/p99/max us:", intervalFrames * 1e9 / intervalNanos));
+        for (int n = 0; n < STAGES.length; n++) {
+            LatencyHistogram histogram = stageHistograms[n];
+            if (STAGES[n] == Stage.RASTERIZE) {
+                text.append("\033[K\n ");
+            }
+            text.append(String.format(" %s %.0f/%.0f/%.0f", STAGES[n].name().toLowerCase(),
+                                      histogram.percentile(0.50) / 1e3,
+                                      histogram.percentile(0.99) / 1e3,
+                                      histogram.getMax() / 1e3));
+        }
+        if (threadBean != null) {
+            text.append(String.format(" | alloc KB %.1f/%.1f/%.1f",
+                                      allocationHistogram.percentile(0.50) / 1024.0,
+                                      allocationHistogram.percentile(0.99) / 1024.0,
+                                      allocationHistogram.getMax() / 1024.0));
+        }
+        text.append("\033[K\n");
+        return text.toString();
+    }
+
+    private static void dump() {
+        StringBuilder row = new StringBuilder();
+        if (!headerWritten) {
+            row.append("epoch_millis,frames");
+            for (Stage stage : STAGES) {
+                String name = stage.name().toLowerCase();
+                row.append(',').append(name).append("_p50_ns,")
+                   .append(name).append("_p99_ns,")
+                   .append(name).append("_max_ns");
+            }
+            row.append(",alloc_p50_bytes,alloc_p99_bytes,alloc_max_bytes\n");
+            headerWritten = true;
+        }
+        row.append(System.currentTimeMillis()).append(',').append(intervalFrames);
+        for (LatencyHistogram histogram : stageHistograms) {
+            appendSummary(row, histogram);
+        }
+        appendSummary(row, allocationHistogram);
+        row.append('\n');
+
+        try {
+            Files.write(DUMP_FILE, row.toString().getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendSummary(StringBuilder row, LatencyHistogram histogram) {
+        row.append(',').append(histogram.percentile(0.50))
+           .append(',').append(histogram.percentile(0.99))
+           .append(',').append(histogram.getMax());
+    }
+
+    /*
+     * Log-linear buckets in the style of HdrHistogram: values below 32 are exact, and
+     * every power of two above that is split into 16 sub-buckets, so a reported
+     * percentile is within about 6% of the recorded value. Percentiles report the
+     * highest value that falls into the bucket; the maximum is tracked exactly.
+     */
+    static class LatencyHistogram {
+        private static final int LINEAR_BUCKETS = 32;
+        private static final int SUB_BUCKETS = 16;
+
+        private final long[] counts = new long[LINEAR_BUCKETS + 59 * SUB_BUCKETS];
+        private long total = 0;
+        private long max = 0;
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            counts[bucketIndex(value)]++;
+            total++;
+            max = Math.max(max, value);
+        }
+
+        long percentile(double fraction) {
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int index = 0; index < counts.length; index++) {
+                seen += counts[index];
+                if (seen >= target) {
+                    return Math.min(bucketUpperBound(index), max);
+                }
+            }
+            return max;
+        }
+
+        long getMax() {
+            return this.max;
+        }
+
+        void reset() {
+            java.util.Arrays.fill(counts, 0);
+            total = 0;
+            max = 0;
+        }
+
+        static int bucketIndex(long value) {
+            if (value < LINEAR_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+            return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+        }
+
+        static long bucketUpperBound(int index) {
+            if (index < LINEAR_BUCKETS) {
+                return index;
+            }
+            int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+            long sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub + 1) << shift) - 1;
+        }
+    }
+}
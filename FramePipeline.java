@@ -0,0 +1,103 @@
+public class FramePipeline implements AutoCloseable {
+    /*
+     * Three rotating buffers: the producer fills the back buffer, publish() swaps it into
+     * the pending slot, and the writer thread swaps the pending slot into its front buffer.
+     * If the writer has not picked up the pending frame yet, the new frame replaces it,
+     * so a slow terminal drops frames instead of stalling rasterization.
+     */
+    private StringBuilder back;
+    private StringBuilder pending;
+    private StringBuilder front;
+    private boolean hasPending = false;
+    private boolean closed = false;
+
+    private final FrameWriter out;
+    private final Thread writer;
+
+    private long publishedFrames = 0;
+    private long writtenFrames = 0;
+    private long droppedFrames = 0;
+
+    public FramePipeline(FrameWriter out, int frameCapacity) {
+        this.out = out;
+        this.back = new StringBuilder(frameCapacity);
+        this.pending = new StringBuilder(frameCapacity);
+        this.front = new StringBuilder(frameCapacity);
+
+        this.writer = new Thread(this::writeLoop, "frame-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // The buffer the producer should render the next frame into, already cleared
+    public StringBuilder backBuffer() {
+        back.setLength(0);
+        return back;
+    }
+
+    public synchronized void publish() {
+        StringBuilder swap = pending;
+        pending = back;
+        back = swap;
+
+        if (hasPending) {
+            droppedFrames++;
+        }
+        hasPending = true;
+        publishedFrames++;
+        notifyAll();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            synchronized (this) {
+                while (!hasPending && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                // Drain the last published frame before shutting down
+                if (!hasPending) {
+                    return;
+                }
+                StringBuilder swap = front;
+                front = pending;
+                pending = swap;
+                hasPending = false;
+            }
+
+            out.write(front);
+
+            synchronized (this) {
+                writtenFrames++;
+            }
+        }
+    }
+
+    public synchronized long getPublishedFrames() {
+        return publishedFrames;
+    }
+
+    public synchronized long getWrittenFrames() {
+        return writtenFrames;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
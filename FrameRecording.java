@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ * Records an animation mode to a compact file and plays it back without rendering.
+ *
+ * Recording file layout (big-endian):
+ *   int magic, int width, int height, int frameCount, int keyframeInterval,
+ *   double framesPerSecond, long indexOffset
+ *   frameCount frame payloads, back to back
+ *   frameCount longs: the file offset of each payload
+ * A payload is a list of runs: varint cells to skip, varint cell count, then one
+ * varint per cell holding the XOR of the new and old character. Unchanged cells
+ * cost nothing and changes between ASCII characters fit in one byte. Frame n is
+ * XORed against frame n - 1, except every keyframeInterval-th frame, which is
+ * XORed against a blank screen so seeking never decodes more than one interval.
+ * A payload ends where the next one (or the index) starts.
+ */
+public class FrameRecording {
+
+    static final int MAGIC = 0x52535152; // "RSQR"
+    static final int HEADER_BYTES = 36;
+
+    // Recordings are a fixed size, whatever the terminal
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 50;
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 120;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 4 && args[0].equals("record")) {
+            AnimationEngine.Mode mode = AnimationEngine.Mode.parse(args[1]);
+            int frames = Integer.parseInt(args[2]);
+            Path file = Paths.get(args[3]);
+
+            long start = System.nanoTime();
+            long bytes = record(mode, new Surface(new Vector(0, 0, 0), "@", 18), frames,
+                                DEFAULT_KEYFRAME_INTERVAL, file);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            long raw = (long) frames * WIDTH * HEIGHT * 2;
+            System.out.printf("Recorded %d %s frames to %s in %.2fs: %d bytes, %.1fx smaller than raw frames\n",
+                              frames, mode, file, seconds, bytes, (double) raw / bytes);
+        } else if ((args.length == 2 || args.length == 3) && args[0].equals("play")) {
+            play(Paths.get(args[1]), args.length == 3 ? Integer.parseInt(args[2]) : 0);
+        } else {
+            System.out.println("Usage: java FrameRecording record <mode> <frames> <file>");
+            System.out.println("       java FrameRecording play <file> [start frame]");
+            System.out.println("Modes: " + Arrays.toString(AnimationEngine.Mode.values()));
+        }
+    }
+
+    /*
+     * Steps the mode as HeadlessRenderer does and writes every frame as a delta.
+     * Returns the size of the file.
+     */
+    public static long record(AnimationEngine.Mode mode, Surface surface, int frames,
+                              int keyframeInterval, Path file) throws IOException {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("frames must be positive");
+        }
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("keyframeInterval must be positive");
+        }
+
+        SurfaceRenderer canvas = new SurfaceRenderer(WIDTH, HEIGHT);
+        Animation animation = mode.newAnimation();
+        int cells = WIDTH * HEIGHT;
+        char[] previous = new char[cells];
+        char[] blank = new char[cells];
+        Arrays.fill(blank, ' ');
+        long[] index = new long[frames];
+
+        // Worst case for one payload: a run header per two cells plus a 3-byte varint per cell
+        ByteBuffer out = ByteBuffer.allocateDirect(Math.max(1 << 16, 8 * cells + 16));
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long offset = HEADER_BYTES;
+            channel.position(offset);
+            for (int frame = 0; frame < frames; frame++) {
+                double time = mode.timeAt(frame);
+                animation.apply(surface, time);
+                char[] current = mode.render(canvas, surface, time).chars;
+
+                if (out.remaining() < 8 * cells + 16) {
+                    writeFully(channel, out);
+                }
+                index[frame] = offset;
+                int before = out.position();
+                encodeDelta(frame % keyframeInterval == 0 ? blank : previous, current, cells, out);
+                offset += out.position() - before;
+                System.arraycopy(current, 0, previous, 0, cells);
+                FrameMetrics.endFrame();
+            }
+
+            long indexOffset = offset;
+            for (long frameOffset : index) {
+                if (out.remaining() < 8) {
+                    writeFully(channel, out);
+                }
+                out.putLong(frameOffset);
+            }
+            writeFully(channel, out);
+
+            out.putInt(MAGIC).putInt(WIDTH).putInt(HEIGHT).putInt(frames).putInt(keyframeInterval)
+               .putDouble(mode.framesPerSecond).putLong(indexOffset);
+            channel.position(0);
+            writeFully(channel, out);
+            return channel.size();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /*
+     * Streams the recording to the terminal at its recorded rate from the given
+     * frame. Decoding touches only the changed cells, and the terminal gets only
+     * the changed cells, so playback costs little more than the write itself.
+     */
+    public static void play(Path file, int startFrame) throws IOException, InterruptedException {
+        try (Reader reader = new Reader(file)) {
+            DeltaFrameEncoder encoder = new DeltaFrameEncoder();
+            StringBuilder output = new StringBuilder();
+            FrameScheduler scheduler = new FrameScheduler(reader.getFramesPerSecond());
+            System.out.print("\033[?25l");
+
+            int frame = startFrame;
+            FrameBuffer screen = reader.seek(frame);
+            while (true) {
+                output.setLength(0);
+                encoder.encode(screen, output);
+                FrameMetrics.appendOverlay(output);
+                FrameWriter.stdout().write(output);
+                FrameMetrics.endFrame();
+                System.out.printf("\rFrame %d/%d | Missed: %d", frame + 1, reader.getFrameCount(),
+                                  scheduler.getMissedDeadlines());
+
+                // Skipped frames are still decoded, since each delta builds on the one before
+                int steps = scheduler.awaitNextFrame();
+                if (frame + steps >= reader.getFrameCount()) {
+                    break;
+                }
+                for (int step = 0; step < steps; step++) {
+                    screen = reader.next();
+                }
+                frame += steps;
+            }
+            System.out.print("\033[?25h\n");
+        }
+    }
+
+    /*
+     * Random access to a recording through a read-only mapping of the whole file.
+     * Frames are decoded into one reused FrameBuffer.
+     */
+    public static final class Reader implements AutoCloseable {
+        private final FileChannel channel;
+        private final MappedByteBuffer data;
+        private final int width;
+        private final int height;
+        private final int frameCount;
+        private final int keyframeInterval;
+        private final double framesPerSecond;
+        private final long indexOffset;
+        private final FrameBuffer frame;
+        // Index of the frame held in the buffer; -1 before the first decode
+        private int current = -1;
+
+        public Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                channel.close();
+                throw new IllegalArgumentException(file + " is not a recording");
+            }
+            if (size > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IllegalArgumentException(file + " is too large to map in one piece");
+            }
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IllegalArgumentException(file + " is not a recording");
+            }
+            this.width = data.getInt(4);
+            this.height = data.getInt(8);
+            this.frameCount = data.getInt(12);
+            this.keyframeInterval = data.getInt(16);
+            this.framesPerSecond = data.getDouble(20);
+            this.indexOffset = data.getLong(28);
+            this.frame = new FrameBuffer(width, height);
+        }
+
+        // Decodes from the nearest keyframe at or before n
+        public FrameBuffer seek(int n) {
+            if (n < 0 || n >= frameCount) {
+                throw new IllegalArgumentException("No frame " + n + " in " + frameCount + " frames");
+            }
+            int keyframe = n - n % keyframeInterval;
+            int from = current >= keyframe && current <= n ? current + 1 : keyframe;
+            for (int k = from; k <= n; k++) {
+                decode(k);
+            }
+            return frame;
+        }
+
+        public FrameBuffer next() {
+            return seek(current + 1);
+        }
+
+        private void decode(int n) {
+            int cells = width * height;
+            if (n % keyframeInterval == 0) {
+                Arrays.fill(frame.chars, 0, cells, ' ');
+            }
+            int start = (int) data.getLong((int) indexOffset + n * 8);
+            int end = n + 1 < frameCount ? (int) data.getLong((int) indexOffset + (n + 1) * 8) : (int) indexOffset;
+            ByteBuffer payload = data.duplicate();
+            payload.limit(end).position(start);
+            decodeDelta(payload, frame.chars, cells);
+            current = n;
+        }
+
+        public int getWidth() {
+            return this.width;
+        }
+
+        public int getHeight() {
+            return this.height;
+        }
+
+        public int getFrameCount() {
+            return this.frameCount;
+        }
+
+        public double getFramesPerSecond() {
+            return this.framesPerSecond;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /*
+     * Appends the runs that turn previous into current. A single unchanged cell
+     * between changes is folded into the run, since its zero costs one byte while
+     * a new run header costs at least two.
+     */
+    static void encodeDelta(char[] previous, char[] current, int cells, ByteBuffer out) {
+        int n = 0;
+        while (n < cells) {
+            int runStart = n;
+            while (n < cells && previous[n] == current[n]) {
+                n++;
+            }
+            if (n == cells) {
+                break;
+            }
+            int skip = n - runStart;
+            int changedStart = n;
+            while (n < cells && (previous[n] != current[n]
+                                 || (n + 1 < cells && previous[n + 1] != current[n + 1]))) {
+                n++;
+            }
+            putVarint(out, skip);
+            putVarint(out, n - changedStart);
+            for (int k = changedStart; k < n; k++) {
+                putVarint(out, previous[k] ^ current[k]);
+            }
+        }
+    }
+
+    // XORs the payload's runs into cells; the buffer's limit marks the end of the payload
+    static void decodeDelta(ByteBuffer payload, char[] cells, int count) {
+        int n = 0;
+        while (payload.hasRemaining()) {
+            n += getVarint(payload);
+            int changed = getVarint(payload);
+            if (n + changed > count) {
+                throw new IllegalStateException("Delta runs past the end of the frame");
+            }
+            for (int k = 0; k < changed; k++, n++) {
+                cells[n] ^= (char) getVarint(payload);
+            }
+        }
+    }
+
+    // Unsigned LEB128: seven bits per byte, high bit set on all but the last
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.concurrent.locks.LockSupport;
+
+public class FrameScheduler {
+    // After this many steps behind, the backlog is dropped instead of simulated
+    private static final int MAX_STEPS_PER_FRAME = 5;
+
+    private final long periodNanos;
+    private long nextDeadline;
+
+    private long missedDeadlines = 0;
+
+    public FrameScheduler(double framesPerSecond) {
+        long periodNanos = (long)(1_000_000_000.0 / framesPerSecond);
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Frame period must be positive");
+        }
+        this.periodNanos = periodNanos;
+        this.nextDeadline = System.nanoTime() + periodNanos;
+    }
+
+    /*
+     * Parks until the next absolute deadline and returns how many fixed simulation
+     * steps the caller should advance. Deadlines are spaced by the period from the
+     * start, not from the end of the previous frame, so render time does not add to
+     * the frame interval. When a frame overruns its deadline, the elapsed periods
+     * are returned as extra steps (the frames in between are skipped) so simulation
+     * time keeps matching wall time.
+     */
+    public int awaitNextFrame() throws InterruptedException {
+        long now = System.nanoTime();
+        int steps;
+
+        if (now < nextDeadline) {
+            while ((now = System.nanoTime()) < nextDeadline) {
+                LockSupport.parkNanos(nextDeadline - now);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            steps = 1;
+            nextDeadline += periodNanos;
+        } else {
+            missedDeadlines++;
+            long behind = 1 + (now - nextDeadline) / periodNanos;
+            if (behind > MAX_STEPS_PER_FRAME) {
+                steps = MAX_STEPS_PER_FRAME;
+                nextDeadline = now + periodNanos;
+            } else {
+                steps = (int) behind;
+                nextDeadline += behind * periodNanos;
+            }
+        }
+
+        return steps;
+    }
+
+    public long getMissedDeadlines() {
+        return this.missedDeadlines;
+    }
+}
@@ -0,0 +1,311 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/*
+ * Streams one render loop to any number of TCP viewers (telnet or nc). Each
+ * published frame is encoded once, both as a delta from the previous frame and as
+ * a full redraw. A single selector thread then hands the shared bytes to every
+ * client, so render and encode cost do not depend on the number of viewers.
+ *
+ * Backpressure is per client. A frame is never interrupted halfway, since that would
+ * split an escape sequence, but a client still writing an older frame skips every
+ * frame published in the meantime. Once it catches up it gets the latest frame: a
+ * delta if it is exactly one behind, a full redraw otherwise. The renderer never
+ * waits for the network.
+ */
+public class FrameServer implements AutoCloseable {
+
+    // One published frame; the byte arrays are shared by all clients and never modified
+    private static final class Frame {
+        final long number;
+        // From frame number - 1 to this one
+        final byte[] delta;
+        final byte[] full;
+
+        Frame(long number, byte[] delta, byte[] full) {
+            this.number = number;
+            this.delta = delta;
+            this.full = full;
+        }
+    }
+
+    private static final class Client {
+        final SocketChannel channel;
+        // The frame being written, or null when the client is caught up
+        ByteBuffer pending;
+        // Number of the last frame queued to this client
+        long sent = -1;
+        // Number of the last frame either queued or counted as dropped
+        long counted = -1;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /*
+     * Bytes the kernel may hold per client. Frames sitting there can no longer be
+     * dropped, so this bounds how far behind a slow viewer gets; a few full frames.
+     */
+    private static final int SEND_BUFFER_BYTES = 32 * 1024;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final ByteBuffer discard = ByteBuffer.allocate(1024);
+
+    // Written by the render thread, read by the selector thread
+    private volatile Frame latest;
+    private volatile boolean closed = false;
+
+    // Used by the render thread only
+    private final DeltaFrameEncoder deltaEncoder = new DeltaFrameEncoder();
+    private final DeltaFrameEncoder fullEncoder = new DeltaFrameEncoder();
+    private final StringBuilder encoded = new StringBuilder();
+    // Only the render thread writes it, so the increment needs no lock
+    private volatile long published = 0;
+
+    // Updated by the selector thread
+    private volatile int clients = 0;
+    private volatile long droppedFrames = 0;
+
+    public FrameServer(InetSocketAddress address) {
+        try {
+            this.selector = Selector.open();
+            this.server = ServerSocketChannel.open();
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.selectorThread = new Thread(this::selectLoop, "frame-server");
+        this.selectorThread.setDaemon(true);
+        this.selectorThread.start();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java FrameServer <port> [mode]");
+            System.out.println("Modes: " + java.util.Arrays.toString(AnimationEngine.Mode.values()));
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        AnimationEngine.Mode mode = args.length > 1
+                                    ? AnimationEngine.Mode.parse(args[1]) : AnimationEngine.Mode.ULTRA_SMOOTH;
+
+        Surface surface = new Surface(new Vector(0, 0, 0), "@", 18);
+        AnimationEngine engine = new AnimationEngine(new SurfaceRenderer(80, 40));
+        try (FrameServer server = new FrameServer(new InetSocketAddress(port))) {
+            System.out.println("Streaming " + mode + " on port " + server.getPort()
+                               + " - connect with: nc localhost " + server.getPort());
+            engine.stream(mode, surface, server);
+        }
+    }
+
+    /*
+     * Encodes the frame for the clients and returns without waiting for them. The
+     * frame buffer may be reused as soon as this returns.
+     */
+    public void publish(FrameBuffer frame) {
+        encoded.setLength(0);
+        deltaEncoder.encode(frame, encoded);
+        byte[] delta = encoded.toString().getBytes(StandardCharsets.UTF_8);
+
+        encoded.setLength(0);
+        fullEncoder.reset();
+        fullEncoder.encode(frame, encoded);
+        byte[] full = encoded.toString().getBytes(StandardCharsets.UTF_8);
+
+        latest = new Frame(published++, delta, full);
+        selector.wakeup();
+    }
+
+    private void selectLoop() {
+        Frame distributed = null;
+        try {
+            while (!closed) {
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        service(key);
+                    }
+                }
+
+                // New clients and caught-up clients both wait for a frame here
+                Frame frame = latest;
+                if (frame != null && frame != distributed) {
+                    for (SelectionKey key : selector.keys()) {
+                        if (key.isValid() && key.attachment() != null) {
+                            offer(key, frame);
+                        }
+                    }
+                    distributed = frame;
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER_BYTES);
+        Client client = new Client(channel);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients++;
+
+        Frame frame = latest;
+        if (frame != null) {
+            offer(key, frame);
+        }
+    }
+
+    private void service(SelectionKey key) {
+        Client client = (Client) key.attachment();
+        try {
+            if (key.isReadable()) {
+                // Viewers only watch; telnet negotiation and keystrokes are discarded
+                discard.clear();
+                if (client.channel.read(discard) < 0) {
+                    disconnect(key);
+                    return;
+                }
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(key, client);
+                Frame frame = latest;
+                if (client.pending == null && frame != null) {
+                    offer(key, frame);
+                }
+            }
+        } catch (IOException e) {
+            disconnect(key);
+        }
+    }
+
+    /*
+     * Queues the frame unless the client is still busy with an older one. Either way
+     * the frames before it that the client was not sent are gone, since it only ever
+     * gets the latest.
+     */
+    private void offer(SelectionKey key, Frame frame) {
+        Client client = (Client) key.attachment();
+        if (client.pending != null) {
+            drop(client, frame.number - 1);
+            return;
+        }
+        if (client.sent >= frame.number) {
+            return;
+        }
+        drop(client, frame.number - 1);
+        byte[] bytes = client.sent == frame.number - 1 ? frame.delta : frame.full;
+        client.pending = ByteBuffer.wrap(bytes);
+        client.sent = frame.number;
+        client.counted = frame.number;
+        try {
+            flush(key, client);
+        } catch (IOException e) {
+            disconnect(key);
+        }
+    }
+
+    // Counts the frames up to number that the client missed, once it has had a first frame
+    private void drop(Client client, long number) {
+        if (client.sent >= 0 && number > client.counted) {
+            droppedFrames += number - client.counted;
+            client.counted = number;
+        }
+    }
+
+    // Writes what the socket takes now and waits for OP_WRITE for the rest
+    private void flush(SelectionKey key, Client client) throws IOException {
+        if (client.pending == null) {
+            return;
+        }
+        client.channel.write(client.pending);
+        if (client.pending.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            client.pending = null;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        Client client = (Client) key.attachment();
+        // A client leaving while behind never gets the frames it skipped
+        Frame frame = latest;
+        if (frame != null) {
+            drop(client, frame.number);
+        }
+        key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+        clients--;
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int getClientCount() {
+        return this.clients;
+    }
+
+    // Frames a client was connected for but never sent, summed over all clients
+    public long getDroppedFrames() {
+        return this.droppedFrames;
+    }
+
+    public long getPublishedFrames() {
+        return this.published;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Loopback check for FrameServer. A viewer that stalls while frames are published
+ * must end up showing the last frame, and every published frame must be either
+ * sent to it or counted as dropped: both when it catches up and when it leaves
+ * while still behind.
+ */
+public class FrameServerCheck {
+
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 40;
+    private static final int FRAMES = 300;
+
+    // Every encoded frame ends by moving below the frame and erasing the rest
+    private static final String FRAME_END = "\033[" + (HEIGHT + 1) + ";1H\033[J";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        checkCatchUp();
+        checkLeaveBehind();
+        System.out.println("FrameServer checks passed");
+    }
+
+    private static void checkCatchUp() throws IOException, InterruptedException {
+        try (FrameServer server = new FrameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             Socket viewer = connect(server)) {
+            FrameBuffer last = publishAll(server);
+
+            viewer.setSoTimeout(1000);
+            String output = readAll(viewer.getInputStream());
+            long received = countFrames(output);
+            check(replay(output).equals(new String(last.chars, 0, WIDTH * HEIGHT)),
+                  "caught-up viewer does not show the last frame");
+            check(server.getDroppedFrames() > 0, "viewer never fell behind");
+            check(received + server.getDroppedFrames() == FRAMES,
+                  "caught-up viewer: " + received + " received + " + server.getDroppedFrames()
+                  + " dropped != " + FRAMES + " published");
+        }
+    }
+
+    private static void checkLeaveBehind() throws IOException, InterruptedException {
+        try (FrameServer server = new FrameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             Socket viewer = connect(server)) {
+            publishAll(server);
+
+            // Leaves without reading, while the server still has frames for it
+            viewer.shutdownOutput();
+            awaitClients(server, 0);
+            String output = readAll(viewer.getInputStream());
+            // A frame cut off by the disconnect was still sent
+            long received = countFrames(output) + (output.endsWith(FRAME_END) ? 0 : 1);
+            check(received + server.getDroppedFrames() == FRAMES,
+                  "departed viewer: " + received + " received + " + server.getDroppedFrames()
+                  + " dropped != " + FRAMES + " published");
+        }
+    }
+
+    // A viewer with a small receive buffer, so it falls behind as long as it does not read
+    private static Socket connect(FrameServer server) throws IOException, InterruptedException {
+        Socket viewer = new Socket();
+        viewer.setReceiveBufferSize(4096);
+        viewer.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        awaitClients(server, 1);
+        return viewer;
+    }
+
+    private static FrameBuffer publishAll(FrameServer server) throws InterruptedException {
+        AnimationEngine.Mode mode = AnimationEngine.Mode.ULTRA_SMOOTH;
+        Animation animation = mode.newAnimation();
+        Surface surface = new Surface(new Vector(0, 0, 0), "@", 18);
+        SurfaceRenderer renderer = new SurfaceRenderer(WIDTH, HEIGHT);
+
+        FrameBuffer frame = null;
+        for (int n = 0; n < FRAMES; n++) {
+            animation.apply(surface, mode.timeAt(n));
+            frame = mode.render(renderer, surface, mode.timeAt(n));
+            server.publish(frame);
+            Thread.sleep(1);
+        }
+        // Lets the selector thread hand out the last frame
+        Thread.sleep(200);
+        return frame;
+    }
+
+    private static void awaitClients(FrameServer server, int count) throws InterruptedException {
+        for (int wait = 0; server.getClientCount() != count; wait++) {
+            check(wait < 200, "expected " + count + " clients, have " + server.getClientCount());
+            Thread.sleep(10);
+        }
+    }
+
+    // Reads until the server closes the connection or goes quiet
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try {
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                bytes.write(chunk, 0, read);
+            }
+        } catch (SocketTimeoutException e) {
+            // Nothing more is coming
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static long countFrames(String output) {
+        long frames = 0;
+        for (int at = output.indexOf(FRAME_END); at >= 0; at = output.indexOf(FRAME_END, at + 1)) {
+            frames++;
+        }
+        return frames;
+    }
+
+    // Plays the output on a blank screen, handling the escape sequences the encoder emits
+    private static String replay(String output) {
+        // One spare row for the cursor parked below the frame
+        char[] screen = new char[WIDTH * (HEIGHT + 1)];
+        Arrays.fill(screen, ' ');
+        int row = 0;
+        int col = 0;
+        int i = 0;
+        while (i < output.length()) {
+            char c = output.charAt(i++);
+            if (c == '\n') {
+                row++;
+                col = 0;
+            } else if (c != '\033') {
+                screen[row * WIDTH + col++] = c;
+            } else {
+                int end = i + 1;
+                while (!Character.isLetter(output.charAt(end))) {
+                    end++;
+                }
+                String params = output.substring(i + 1, end);
+                char command = output.charAt(end);
+                i = end + 1;
+                if (command == 'H') {
+                    String[] position = params.isEmpty() ? new String[] {"1", "1"} : params.split(";");
+                    row = Integer.parseInt(position[0]) - 1;
+                    col = Integer.parseInt(position[1]) - 1;
+                } else if (command == 'C') {
+                    col += Integer.parseInt(params);
+                } else if (command == 'J') {
+                    Arrays.fill(screen, params.equals("2") ? 0 : row * WIDTH + col, screen.length, ' ');
+                } else {
+                    throw new IllegalStateException("Unexpected escape sequence: " + params + command);
+                }
+            }
+        }
+        return new String(screen, 0, WIDTH * HEIGHT);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
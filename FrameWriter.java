@@ -0,0 +1,119 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+public class FrameWriter {
+    private static FrameWriter stdout;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+
+    // Reused across frames; grown only when a frame does not fit
+    private char[] chars = new char[8192];
+    private CharBuffer charBuffer = CharBuffer.wrap(chars);
+    private ByteBuffer byteBuffer = ByteBuffer.allocateDirect(16384);
+
+    private int lastFrameBytes = 0;
+
+    public FrameWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        // Block glyphs such as '█' are multi-byte, so frames are always encoded as UTF-8
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public static synchronized FrameWriter stdout() {
+        if (stdout == null) {
+            stdout = new FrameWriter(new FileOutputStream(FileDescriptor.out).getChannel());
+        }
+        return stdout;
+    }
+
+    // Sends all stdout frames to another channel, e.g. a null sink for benchmarks
+    public static synchronized void redirectStdout(WritableByteChannel channel) {
+        stdout = new FrameWriter(channel);
+    }
+
+    public synchronized void write(CharSequence frame) {
+        long start = FrameMetrics.start();
+        int length = frame.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+            charBuffer = CharBuffer.wrap(chars);
+        }
+        if (frame instanceof StringBuilder) {
+            ((StringBuilder) frame).getChars(0, length, chars, 0);
+        } else {
+            for (int n = 0; n < length; n++) {
+                chars[n] = frame.charAt(n);
+            }
+        }
+        charBuffer.clear().limit(length);
+
+        encode();
+
+        // Anything still buffered in System.out (status lines) must reach the terminal first
+        System.out.flush();
+        try {
+            while (byteBuffer.hasRemaining()) {
+                channel.write(byteBuffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        FrameMetrics.record(FrameMetrics.Stage.WRITE, start);
+    }
+
+    // Writes output that is already UTF-8, such as frames replayed from a FrameCache
+    public synchronized void write(byte[] frame) {
+        long start = FrameMetrics.start();
+        System.out.flush();
+        ByteBuffer bytes = ByteBuffer.wrap(frame);
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastFrameBytes = frame.length;
+        FrameMetrics.record(FrameMetrics.Stage.WRITE, start);
+    }
+
+    private void encode() {
+        encoder.reset();
+        byteBuffer.clear();
+        CoderResult result;
+        while ((result = encoder.encode(charBuffer, byteBuffer, true)).isOverflow()) {
+            growByteBuffer();
+        }
+        if (result.isError()) {
+            throw new IllegalStateException("Unexpected encoder result: " + result);
+        }
+        while (encoder.flush(byteBuffer).isOverflow()) {
+            growByteBuffer();
+        }
+        byteBuffer.flip();
+        lastFrameBytes = byteBuffer.remaining();
+    }
+
+    private void growByteBuffer() {
+        ByteBuffer larger = ByteBuffer.allocateDirect(byteBuffer.capacity() * 2);
+        byteBuffer.flip();
+        larger.put(byteBuffer);
+        byteBuffer = larger;
+    }
+
+    public synchronized int getLastFrameBytes() {
+        return this.lastFrameBytes;
+    }
+}
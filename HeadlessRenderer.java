@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class HeadlessRenderer {
+
+    // Headless frames are a fixed size, whatever the terminal
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 50;
+
+    /*
+     * Frame file layout (big-endian):
+     *   int magic, int width, int height, int frameCount
+     *   frameCount frames of width * height UTF-16 chars, row-major, no separators
+     * Every frame has the same stride, so frame n starts at HEADER_BYTES + n * stride.
+     */
+    static final int MAGIC = 0x52535146; // "RSQF"
+    static final int HEADER_BYTES = 16;
+
+    // Frames are mapped in windows so very long runs do not need one huge mapping
+    private static final long MAX_WINDOW_BYTES = 256L * 1024 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Usage: java HeadlessRenderer <mode> <frames> <output file>");
+            System.out.println("Modes: " + java.util.Arrays.toString(AnimationEngine.Mode.values()));
+            return;
+        }
+        AnimationEngine.Mode mode = AnimationEngine.Mode.parse(args[0]);
+        int frames = Integer.parseInt(args[1]);
+        Path file = Paths.get(args[2]);
+
+        Surface surface = new Surface(new Vector(0, 0, 0), "@", 18);
+
+        long start = System.nanoTime();
+        render(mode, surface, frames, file);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("Rendered %d %s frames to %s in %.2fs (%.0f frames/s)\n",
+                          frames, mode, file, seconds, frames / seconds);
+    }
+
+    /*
+     * Steps the mode's animation and renderer exactly as the terminal loop does when
+     * no frame is skipped, minus the output and the frame pacing.
+     */
+    public static void render(AnimationEngine.Mode mode, Surface surface, int frames, Path file) throws IOException {
+        if (frames <= 0) {
+            throw new IllegalArgumentException("frames must be positive");
+        }
+
+        SurfaceRenderer canvas = new SurfaceRenderer(WIDTH, HEIGHT);
+        Animation animation = mode.newAnimation();
+        animation.apply(surface, mode.timeAt(0));
+        FrameBuffer screen = mode.render(canvas, surface, mode.timeAt(0));
+        int width = screen.width;
+        int height = screen.height;
+        long stride = (long) width * height * 2;
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC).putInt(width).putInt(height).putInt(frames);
+            header.force();
+
+            int framesPerWindow = (int) Math.max(1, Math.min(frames, MAX_WINDOW_BYTES / stride));
+            int frame = 0;
+            while (frame < frames) {
+                int windowFrames = Math.min(framesPerWindow, frames - frame);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE,
+                                                      HEADER_BYTES + frame * stride, windowFrames * stride);
+                for (int n = 0; n < windowFrames; n++, frame++) {
+                    if (frame > 0) {
+                        double time = mode.timeAt(frame);
+                        animation.apply(surface, time);
+                        screen = mode.render(canvas, surface, time);
+                    }
+                    // The frame is already row-major, so it is copied in one bulk put
+                    window.asCharBuffer().put(screen.chars, 0, width * height);
+                    window.position(window.position() + (int) stride);
+                    FrameMetrics.endFrame();
+                }
+                window.force();
+            }
+        }
+    }
+}
@@ -1,22 +1,39 @@
-
 public class Main {
 
 public static void main(String[] args) {
+    // java Main [mode], e.g. java Main wave-pattern; the default is ULTRA_SMOOTH
+    AnimationEngine.Mode mode = AnimationEngine.Mode.ULTRA_SMOOTH;
+    if (args.length > 0) {
+        try {
+            mode = AnimationEngine.Mode.parse(args[0]);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown mode: " + args[0]);
+            System.out.println("Modes: " + java.util.Arrays.toString(AnimationEngine.Mode.values()));
+            return;
+        }
+    }
+
     Vector origin = new Vector(0, 0, 0);
     Surface surface = new Surface(origin, "@", 18);
-    
-    // Choose one:
-    SmoothASCIIRotation.ultraSmoothRotation(surface);
-    // ASCIIRotationVariants.classicASCIIRotation(surface);
-    // SmoothASCIIRotation.ultraSmoothRotation(surface);
-    // SmoothASCIIRotation.interpolatedRotation(surface);
-    // SmoothASCIIRotation.highFPSWaveRotation(surface);
-    // ASCIIRotationVariants.denseCharacterRotation(surface);
-    // ASCIIRotationVariants.wavePatternRotation(surface);
-    // ASCIIRotationVariants.spiralRotation(surface);
-    // InfiniteRotationDemo.infiniteRotation(surface);
-    // InfiniteRotationDemo.infiniteRotationWithPattern(surface);
-    // InfiniteRotationDemo.bouncingRotation(surface);
+    SurfaceRenderer renderer = new SurfaceRenderer(80, 50);
+
+    // Solid, hole-free slab for the classic renderers; cost no longer grows with the surface width
+    // renderer.setScanlineRendering(true);
+
+    // Classic renderer samples about one point per covered cell, fewer when frames run late
+    // renderer.setAdaptiveDetail(true);
+
+    // Perspective for the classic renderer; the surface's origin vector then places it in the world
+    // renderer.setCamera(Camera.atDistance(60));
+
+    // Shade by a light from the upper left instead of by depth
+    // renderer.setShading(Shading.fromUpperLeft(ASCIIRotationVariants.DEPTH_CHARS_DENSE));
+
+    // Many surfaces in one scene: java SceneDemo
+    // One render loop for many viewers over TCP: java FrameServer <port> [mode]
+    // Record once, replay without rendering: java FrameRecording record spiral 600 spiral.rsq
+
+    new AnimationEngine(renderer).run(mode, surface);
+}
+
 }
-    
-}
\ No newline at end of file
@@ -0,0 +1,80 @@
+/*
+ * Immutable 4x4 matrix for homogeneous transforms, stored row-major. Vertices are
+ * column vectors, so a.multiply(b) applies b first.
+ */
+public final class Matrix4 {
+    // m[row * 4 + column]
+    private final double[] m;
+
+    private Matrix4(double[] m) {
+        this.m = m;
+    }
+
+    public static Matrix4 of(double... entries) {
+        if (entries.length != 16) {
+            throw new IllegalArgumentException("A 4x4 matrix needs 16 entries, got " + entries.length);
+        }
+        return new Matrix4(entries.clone());
+    }
+
+    public static Matrix4 translation(double x, double y, double z) {
+        return new Matrix4(new double[] {
+            1, 0, 0, x,
+            0, 1, 0, y,
+            0, 0, 1, z,
+            0, 0, 0, 1
+        });
+    }
+
+    public Matrix4 multiply(Matrix4 other) {
+        double[] out = new double[16];
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                double sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += m[row * 4 + k] * other.m[k * 4 + column];
+                }
+                out[row * 4 + column] = sum;
+            }
+        }
+        return new Matrix4(out);
+    }
+
+    /*
+     * Writes this * model into 16 entries of out without allocating. The model is the
+     * 12-entry layout of Surface.copyTransform: a row-major rotation, then the
+     * translation, with an implied bottom row of (0, 0, 0, 1).
+     */
+    void multiplyTransform(double[] transform, int offset, double[] out, int outOffset) {
+        for (int row = 0; row < 4; row++) {
+            double r0 = m[row * 4], r1 = m[row * 4 + 1], r2 = m[row * 4 + 2], r3 = m[row * 4 + 3];
+            for (int column = 0; column < 3; column++) {
+                out[outOffset + row * 4 + column] = r0 * transform[offset + column]
+                                                  + r1 * transform[offset + 3 + column]
+                                                  + r2 * transform[offset + 6 + column];
+            }
+            out[outOffset + row * 4 + 3] = r0 * transform[offset + 9]
+                                         + r1 * transform[offset + 10]
+                                         + r2 * transform[offset + 11]
+                                         + r3;
+        }
+    }
+
+    public double get(int row, int column) {
+        if (row < 0 || row > 3 || column < 0 || column > 3) {
+            throw new IllegalArgumentException("No entry at (" + row + ", " + column + ")");
+        }
+        return m[row * 4 + column];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Matrix4[");
+        for (int row = 0; row < 4; row++) {
+            text.append(row == 0 ? "" : ", ");
+            text.append(String.format("(%.4f, %.4f, %.4f, %.4f)",
+                                      m[row * 4], m[row * 4 + 1], m[row * 4 + 2], m[row * 4 + 3]));
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Normals of a height field z(i, j) on a SurfaceMesh grid, stored as the two slopes
+ * dz/di and dz/dj per vertex; the unnormalized normal is (-dz/dx, -dz/dy, 1) with
+ * x = i * scale. Renderers refill the slopes each frame from the derivative of the
+ * height: for a sine field that is a cosine over the same inputs, so a SineField
+ * with a quarter-turn phase offset updates them from its per-angle tables without
+ * per-vertex trig. Factors that depend only on the grid are kept by the caller.
+ */
+public class NormalCache {
+    final double[] slopeI;
+    final double[] slopeJ;
+    private final int count;
+    private final double scale;
+
+    public NormalCache(int count, double scale) {
+        if (scale == 0) {
+            throw new IllegalArgumentException("Grid scale must not be zero");
+        }
+        this.count = count;
+        this.scale = scale;
+        this.slopeI = new double[count];
+        this.slopeJ = new double[count];
+    }
+
+    /*
+     * Shades every vertex from its normal and the model-space light and viewer
+     * directions produced by Shading.toModelSpace. Lighting is two-sided: a normal
+     * pointing away from the viewer is flipped, since either side of the sheet can
+     * face the screen.
+     */
+    public void shade(Shading shading, double[] modelLight, char[] out) {
+        double lightX = modelLight[0], lightY = modelLight[1], lightZ = modelLight[2];
+        double viewX = modelLight[3], viewY = modelLight[4], viewZ = modelLight[5];
+        double inverseScale = 1.0 / scale;
+        for (int n = 0; n < count; n++) {
+            double normalX = -slopeI[n] * inverseScale;
+            double normalY = -slopeJ[n] * inverseScale;
+
+            double towardsLight = normalX * lightX + normalY * lightY + lightZ;
+            if (normalX * viewX + normalY * viewY + viewZ < 0) {
+                towardsLight = -towardsLight;
+            }
+            double length = Math.sqrt(normalX * normalX + normalY * normalY + 1);
+            out[n] = shading.shade(towardsLight / length);
+        }
+    }
+
+    public int size() {
+        return this.count;
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+public class ParallelRasterizer {
+    // Below this many vertices per tile the fork/join overhead outweighs the work
+    private static final int MIN_VERTICES_PER_TILE = 4096;
+
+    private final ForkJoinPool pool;
+
+    // Per-tile private buffers, reused across frames
+    private char[][] tileChars = new char[0][];
+    private float[][] tileDepth = new float[0][];
+
+    public ParallelRasterizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelRasterizer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Per frame copy of the surface's rotation, read by every tile
+    private final double[] transform = new double[12];
+
+    /*
+     * Rotates and z-tests the layered mesh in tiles of whole (i, j) columns, each
+     * culled as in ColumnRasterizer. Each tile resolves its columns into a private
+     * buffer with the serial strict-less-than test, then tiles are merged in vertex
+     * order, so ties resolve to the lowest vertex index exactly like the serial loop
+     * does.
+     */
+    public void rasterizeLayered(Surface surface, SurfaceMesh mesh, char[] depthChars, FrameBuffer frame) {
+        rasterizeLayered(surface, mesh, mesh.layers, depthChars, frame);
+    }
+
+    // Vertex n is drawn as depthChars[min(|charIndex[n]|, depthChars.length - 1)]
+    public void rasterizeLayered(Surface surface, SurfaceMesh mesh, int[] charIndex, char[] depthChars,
+                                 FrameBuffer frame) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        int columns = mesh.size() / mesh.columnSize;
+        surface.copyTransform(transform, 0);
+
+        int tiles = Math.max(1, Math.min(pool.getParallelism(), mesh.size() / MIN_VERTICES_PER_TILE));
+        int cells = screenWidth * screenHeight;
+        ensureTiles(tiles, cells);
+
+        forEachTile(tiles, tile -> {
+            int from = (int)((long)columns * tile / tiles);
+            int to = (int)((long)columns * (tile + 1) / tiles);
+            char[] chars = tileChars[tile];
+            float[] depth = tileDepth[tile];
+            Arrays.fill(chars, 0, cells, ' ');
+            Arrays.fill(depth, 0, cells, Float.MAX_VALUE);
+
+            ColumnRasterizer.rasterizeColumns(transform, mesh, from, to, charIndex, depthChars,
+                                              chars, depth, screenWidth, screenHeight);
+        });
+
+        // Merge row bands in parallel; within a cell, earlier tiles win ties
+        int bands = Math.min(tiles, screenHeight);
+        forEachTile(bands, band -> {
+            int fromRow = screenHeight * band / bands;
+            int toRow = screenHeight * (band + 1) / bands;
+            char[] screen = frame.chars;
+            float[] depthBuffer = frame.depth;
+            for (int cell = fromRow * screenWidth; cell < toRow * screenWidth; cell++) {
+                for (int tile = 0; tile < tiles; tile++) {
+                    if (tileDepth[tile][cell] < depthBuffer[cell]) {
+                        depthBuffer[cell] = tileDepth[tile][cell];
+                        screen[cell] = tileChars[tile][cell];
+                    }
+                }
+            }
+        });
+    }
+
+    private void ensureTiles(int tiles, int cellCount) {
+        if (tileChars.length < tiles || tileChars[0].length < cellCount) {
+            tileChars = new char[tiles][cellCount];
+            tileDepth = new float[tiles][cellCount];
+        }
+    }
+
+    private void forEachTile(int tiles, IntConsumer work) {
+        if (tiles == 1) {
+            work.accept(0);
+        } else {
+            pool.invoke(new TileTask(0, tiles, work));
+        }
+    }
+
+    private static class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer work;
+
+        TileTask(int from, int to, IntConsumer work) {
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                work.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(from, mid, work), new TileTask(mid, to, work));
+        }
+    }
+}
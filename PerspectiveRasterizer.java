@@ -0,0 +1,57 @@
+public final class PerspectiveRasterizer {
+
+    private PerspectiveRasterizer() {
+    }
+
+    /*
+     * Projects a layered mesh through a precomputed model-view-projection matrix
+     * (16 row-major entries at offset) and z-tests it into the frame. Per vertex
+     * this is one matrix-vector product and one divide; the depth row is skipped
+     * because it equals w for a Camera projection. Points in front of the near
+     * plane are dropped. Each cell keeps the nearest point, as in the orthographic
+     * renderers, with the view depth as the depth value. Vertex n is drawn as
+     * depthChars[min(|charIndex[n]|, depthChars.length - 1)].
+     */
+    static void rasterizeLayered(SurfaceMesh mesh, double[] mvp, int offset, double near,
+                                 int[] charIndex, char[] depthChars, FrameBuffer frame) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        char[] screen = frame.chars;
+        float[] depthBuffer = frame.depth;
+
+        double m00 = mvp[offset],      m01 = mvp[offset + 1],  m02 = mvp[offset + 2],  m03 = mvp[offset + 3];
+        double m10 = mvp[offset + 4],  m11 = mvp[offset + 5],  m12 = mvp[offset + 6],  m13 = mvp[offset + 7];
+        double m30 = mvp[offset + 12], m31 = mvp[offset + 13], m32 = mvp[offset + 14], m33 = mvp[offset + 15];
+
+        double[] xs = mesh.vertices.x;
+        double[] ys = mesh.vertices.y;
+        double[] zs = mesh.vertices.z;
+        for (int n = 0; n < mesh.size(); n++) {
+            double x = xs[n];
+            double y = ys[n];
+            double z = zs[n];
+
+            double w = m30 * x + m31 * y + m32 * z + m33;
+            if (w < near) {
+                continue;
+            }
+            double inverseW = 1.0 / w;
+
+            int screenX = (int)((m00 * x + m01 * y + m02 * z + m03) * inverseW + screenWidth/2);
+            int screenY = (int)((m10 * x + m11 * y + m12 * z + m13) * inverseW + screenHeight/2);
+
+            if (screenX >= 0 && screenX < screenWidth &&
+                screenY >= 0 && screenY < screenHeight) {
+
+                int cell = screenY * screenWidth + screenX;
+                float depth = (float) w;
+                if (depth < depthBuffer[cell]) {
+                    depthBuffer[cell] = depth;
+
+                    int depthIndex = Math.min(Math.abs(charIndex[n]), depthChars.length - 1);
+                    screen[cell] = depthChars[depthIndex];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+public final class Quaternion {
+    public static final Quaternion IDENTITY = new Quaternion(1, 0, 0, 0);
+
+    // Slerp falls back to a normalized lerp when the quaternions are this close
+    private static final double SLERP_LINEAR_THRESHOLD = 0.9995;
+
+    final double w;
+    final double x;
+    final double y;
+    final double z;
+
+    public Quaternion(double w, double x, double y, double z) {
+        this.w = w;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    // Same orientation as Surface.setRotationAngles(A, B, C), i.e. Rz(C) * Ry(B) * Rx(A)
+    public static Quaternion fromEuler(double A, double B, double C) {
+        double cx = Math.cos(A * 0.5), sx = Math.sin(A * 0.5);
+        double cy = Math.cos(B * 0.5), sy = Math.sin(B * 0.5);
+        double cz = Math.cos(C * 0.5), sz = Math.sin(C * 0.5);
+
+        return new Quaternion(
+            cz * cy * cx + sz * sy * sx,
+            cz * cy * sx - sz * sy * cx,
+            cz * sy * cx + sz * cy * sx,
+            sz * cy * cx - cz * sy * sx
+        );
+    }
+
+    public static Quaternion fromAxisAngle(double axisX, double axisY, double axisZ, double angle) {
+        double length = Math.sqrt(axisX * axisX + axisY * axisY + axisZ * axisZ);
+        if (length == 0) {
+            throw new IllegalArgumentException("Rotation axis must not be zero");
+        }
+        double s = Math.sin(angle * 0.5) / length;
+        return new Quaternion(Math.cos(angle * 0.5), axisX * s, axisY * s, axisZ * s);
+    }
+
+    // this * other: applies other first, then this. No trig, so incremental steps stay cheap.
+    public Quaternion multiply(Quaternion other) {
+        return new Quaternion(
+            w * other.w - x * other.x - y * other.y - z * other.z,
+            w * other.x + x * other.w + y * other.z - z * other.y,
+            w * other.y - x * other.z + y * other.w + z * other.x,
+            w * other.z + x * other.y - y * other.x + z * other.w
+        );
+    }
+
+    public double dot(Quaternion other) {
+        return w * other.w + x * other.x + y * other.y + z * other.z;
+    }
+
+    public double norm() {
+        return Math.sqrt(dot(this));
+    }
+
+    public Quaternion normalize() {
+        double norm = norm();
+        if (norm == 0) {
+            throw new IllegalArgumentException("Cannot normalize a zero quaternion");
+        }
+        return new Quaternion(w / norm, x / norm, y / norm, z / norm);
+    }
+
+    /*
+     * Spherical interpolation from this orientation (t = 0) to target (t = 1) along
+     * the shorter arc, at constant angular speed.
+     */
+    public Quaternion slerp(Quaternion target, double t) {
+        double cosTheta = dot(target);
+        double sign = 1;
+        // q and -q are the same orientation; flip to take the shorter way round
+        if (cosTheta < 0) {
+            cosTheta = -cosTheta;
+            sign = -1;
+        }
+
+        double from;
+        double to;
+        if (cosTheta > SLERP_LINEAR_THRESHOLD) {
+            from = 1 - t;
+            to = t;
+        } else {
+            double theta = Math.acos(cosTheta);
+            double sinTheta = Math.sin(theta);
+            from = Math.sin((1 - t) * theta) / sinTheta;
+            to = Math.sin(t * theta) / sinTheta;
+        }
+        to *= sign;
+
+        return new Quaternion(
+            from * w + to * target.w,
+            from * x + to * target.x,
+            from * y + to * target.y,
+            from * z + to * target.z
+        ).normalize();
+    }
+
+    /*
+     * Normalized linear interpolation along the shorter arc. No trig, unlike slerp;
+     * the angular speed is not constant, which does not matter for a small fixed blend.
+     */
+    public Quaternion nlerp(Quaternion target, double t) {
+        double to = dot(target) < 0 ? -t : t;
+        return new Quaternion(
+            (1 - t) * w + to * target.w,
+            (1 - t) * x + to * target.x,
+            (1 - t) * y + to * target.y,
+            (1 - t) * z + to * target.z
+        ).normalize();
+    }
+
+    public double getW() {
+        return this.w;
+    }
+
+    public double getX() {
+        return this.x;
+    }
+
+    public double getY() {
+        return this.y;
+    }
+
+    public double getZ() {
+        return this.z;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Quaternion(%.4f, %.4f, %.4f, %.4f)", w, x, y, z);
+    }
+}
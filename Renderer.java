@@ -0,0 +1,8 @@
+/*
+ * Draws an oriented surface into a SurfaceRenderer's canvas and returns it. The
+ * engine owns the canvas, so the same renderer serves a terminal loop, a headless
+ * run or a pre-render worker. time is only read by the animated height fields.
+ */
+public interface Renderer {
+    FrameBuffer render(SurfaceRenderer canvas, Surface surface, double time);
+}
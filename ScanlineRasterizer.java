@@ -0,0 +1,145 @@
+public class ScanlineRasterizer {
+    // Corner n has bit 0 set for max x, bit 1 for max y, bit 2 for the max layer.
+    // Faces are in Shading's order: min/max layer, min/max x, min/max y.
+    private static final int[][] FACES = {
+        {0, 1, 3, 2}, {4, 5, 7, 6},
+        {0, 2, 6, 4}, {1, 3, 7, 5},
+        {0, 1, 5, 4}, {2, 3, 7, 6}
+    };
+
+    private final double[] cornerX = new double[8];
+    private final double[] cornerY = new double[8];
+    private final double[] cornerZ = new double[8];
+    private final double[] rotatedX = new double[8];
+    private final double[] rotatedY = new double[8];
+    private final double[] rotatedZ = new double[8];
+    private final double[] cornerLayer = new double[8];
+
+    /*
+     * Draws the solid slab that a layered SurfaceMesh with the same parameters samples
+     * with points. Only the 8 corners are rotated; the 12 face triangles are then
+     * scan-converted at cell centres with depth and layer interpolated across each
+     * face, so the cost follows the covered screen area instead of the surface width,
+     * and steep angles leave no holes. Each cell keeps the nearest (smallest z) face
+     * and takes its character from the interpolated layer, as the point path does.
+     */
+    public void rasterizeSlab(Surface surface, double scale, int minLayer, int maxLayer, double layerSpacing,
+                              char[] depthChars, FrameBuffer frame) {
+        rasterizeSlab(surface, scale, minLayer, maxLayer, layerSpacing, depthChars, null, frame);
+    }
+
+    // With faceChars, each face is filled with its own character (indexed as in Shading) instead
+    public void rasterizeSlab(Surface surface, double scale, int minLayer, int maxLayer, double layerSpacing,
+                              char[] depthChars, char[] faceChars, FrameBuffer frame) {
+        if (minLayer > maxLayer) {
+            throw new IllegalArgumentException("minLayer must not exceed maxLayer");
+        }
+        int size = surface.getWidth();
+        double minX = (0 - size/2.0) * scale;
+        double maxX = (size - 1 - size/2.0) * scale;
+
+        for (int n = 0; n < 8; n++) {
+            cornerX[n] = (n & 1) == 0 ? minX : maxX;
+            cornerY[n] = (n & 2) == 0 ? minX : maxX;
+            cornerLayer[n] = (n & 4) == 0 ? minLayer : maxLayer;
+            cornerZ[n] = cornerLayer[n] * layerSpacing;
+        }
+        surface.rotateAll(cornerX, cornerY, cornerZ, rotatedX, rotatedY, rotatedZ, 8);
+
+        // Screen coordinates in cells: a point lands in cell (int)(x + width/2)
+        for (int n = 0; n < 8; n++) {
+            rotatedX[n] += frame.width/2;
+            rotatedY[n] += frame.height/2;
+        }
+
+        for (int f = 0; f < FACES.length; f++) {
+            int[] face = FACES[f];
+            char faceChar = faceChars == null ? 0 : faceChars[f];
+            drawTriangle(face[0], face[1], face[2], depthChars, faceChar, frame);
+            drawTriangle(face[0], face[2], face[3], depthChars, faceChar, frame);
+        }
+    }
+
+    // faceChar 0 takes the character from the interpolated layer
+    private void drawTriangle(int a, int b, int c, char[] depthChars, char faceChar, FrameBuffer frame) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        double x0 = rotatedX[a], y0 = rotatedY[a];
+        double x1 = rotatedX[b], y1 = rotatedY[b];
+        double x2 = rotatedX[c], y2 = rotatedY[c];
+
+        double area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        // Edge-on faces cover no cell centres
+        if (Math.abs(area) < 1e-12) {
+            return;
+        }
+
+        // Depth and layer are affine over the face, so they step by a constant per cell
+        double z0 = rotatedZ[a], z1 = rotatedZ[b], z2 = rotatedZ[c];
+        double l0 = cornerLayer[a], l1 = cornerLayer[b], l2 = cornerLayer[c];
+        double dzdx = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) / area;
+        double dzdy = ((x1 - x0) * (z2 - z0) - (x2 - x0) * (z1 - z0)) / area;
+        double dldx = ((l1 - l0) * (y2 - y0) - (l2 - l0) * (y1 - y0)) / area;
+        double dldy = ((x1 - x0) * (l2 - l0) - (x2 - x0) * (l1 - l0)) / area;
+
+        int firstRow = Math.max(0, (int) Math.ceil(Math.min(y0, Math.min(y1, y2)) - 0.5));
+        int lastRow = Math.min(screenHeight - 1, (int) Math.floor(Math.max(y0, Math.max(y1, y2)) - 0.5));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            double sampleY = row + 0.5;
+
+            double left = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            for (int edge = 0; edge < 3; edge++) {
+                double x = edgeCrossing(sampleY, edge == 0 ? a : edge == 1 ? b : c,
+                                                 edge == 0 ? b : edge == 1 ? c : a);
+                if (!Double.isNaN(x)) {
+                    left = Math.min(left, x);
+                    right = Math.max(right, x);
+                }
+            }
+            if (left > right) {
+                continue;
+            }
+
+            int firstCol = Math.max(0, (int) Math.ceil(left - 0.5));
+            int lastCol = Math.min(screenWidth - 1, (int) Math.floor(right - 0.5));
+            if (firstCol > lastCol) {
+                continue;
+            }
+
+            double dy = sampleY - y0;
+            double dx = firstCol + 0.5 - x0;
+            double z = z0 + dx * dzdx + dy * dzdy;
+            double layer = l0 + dx * dldx + dy * dldy;
+
+            char[] screen = frame.chars;
+            float[] depthBuffer = frame.depth;
+            int rowStart = row * screenWidth;
+            for (int col = firstCol; col <= lastCol; col++) {
+                float cellZ = (float) z;
+                if (cellZ < depthBuffer[rowStart + col]) {
+                    depthBuffer[rowStart + col] = cellZ;
+                    if (faceChar != 0) {
+                        screen[rowStart + col] = faceChar;
+                    } else {
+                        int depthIndex = (int) Math.min(Math.abs(Math.round(layer)), depthChars.length - 1);
+                        screen[rowStart + col] = depthChars[depthIndex];
+                    }
+                }
+                z += dzdx;
+                layer += dldx;
+            }
+        }
+    }
+
+    // Where the edge between two rotated corners crosses sampleY, or NaN if it does not
+    private double edgeCrossing(double sampleY, int from, int to) {
+        double fromY = rotatedY[from];
+        double toY = rotatedY[to];
+        if ((sampleY < fromY) == (sampleY < toY)) {
+            return Double.NaN;
+        }
+        return rotatedX[from] + (sampleY - fromY) * (rotatedX[to] - rotatedX[from]) / (toY - fromY);
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Many surfaces drawn into one depth-tested frame. Surfaces of the same width share
+ * one model-space mesh. Each frame the object transforms are gathered into a single
+ * contiguous array, objects whose bounding sphere misses the canvas are culled, and
+ * the rest are transformed and z-tested in one fused loop per object, so the only
+ * per-vertex work is for objects that can actually land on screen.
+ *
+ * Without a camera, surface positions are in screen cells relative to the canvas
+ * centre, with z added to the rotated depth. With one, positions are world
+ * coordinates and each object gets a full model-view-projection matrix per frame.
+ */
+public class Scene {
+    // Row-major 3x3 rotation followed by the position, per object
+    private static final int STRIDE = 12;
+
+    private final double scale;
+    private final int minLayer;
+    private final int maxLayer;
+    private final double layerSpacing;
+
+    private final List<Surface> surfaces = new ArrayList<>();
+    private final Map<Integer, SurfaceMesh> meshes = new HashMap<>();
+    // Parallel to surfaces, so the render loop does no lookups
+    private SurfaceMesh[] objectMeshes = new SurfaceMesh[16];
+    private double[] transforms = new double[16 * STRIDE];
+    // Per-object model-view-projection matrices, 16 entries each, when rendering with a camera
+    private double[] projections = new double[0];
+    private int visibleCount;
+    // Scratch for shaded frames; each object is lit in its own model space
+    private final double[] modelLight = new double[6];
+    private final char[] faceChars = new char[Shading.FACE_COUNT];
+
+    public Scene(double scale, int minLayer, int maxLayer, double layerSpacing) {
+        if (maxLayer < minLayer) {
+            throw new IllegalArgumentException("maxLayer must not be smaller than minLayer");
+        }
+        this.scale = scale;
+        this.minLayer = minLayer;
+        this.maxLayer = maxLayer;
+        this.layerSpacing = layerSpacing;
+    }
+
+    // Returns the index of the added surface
+    public int add(Surface surface) {
+        int index = surfaces.size();
+        if (index == objectMeshes.length) {
+            objectMeshes = Arrays.copyOf(objectMeshes, index * 2);
+            transforms = Arrays.copyOf(transforms, index * 2 * STRIDE);
+        }
+        SurfaceMesh mesh = meshes.get(surface.getWidth());
+        if (mesh == null) {
+            mesh = new SurfaceMesh(surface, scale, minLayer, maxLayer, layerSpacing);
+            meshes.put(surface.getWidth(), mesh);
+        }
+        surfaces.add(surface);
+        objectMeshes[index] = mesh;
+        return index;
+    }
+
+    /*
+     * Draws every visible surface into the frame, which must already be cleared.
+     * Each cell keeps the nearest point across all objects; ties go to the object
+     * added first. camera may be null for the orthographic projection, and shading
+     * null to draw by depth instead of by light.
+     */
+    public void rasterize(FrameBuffer frame, char[] depthChars, Camera camera, Shading shading) {
+        int count = surfaces.size();
+
+        long start = FrameMetrics.start();
+        for (int object = 0; object < count; object++) {
+            surfaces.get(object).copyTransform(transforms, object * STRIDE);
+        }
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        if (camera != null) {
+            rasterizePerspective(frame, depthChars, camera, shading);
+        } else {
+            rasterizeOrthographic(frame, depthChars, shading);
+        }
+    }
+
+    private void rasterizeOrthographic(FrameBuffer frame, char[] depthChars, Shading shading) {
+        int count = surfaces.size();
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+
+        long start = FrameMetrics.start();
+        char[] screen = frame.chars;
+        float[] depthBuffer = frame.depth;
+        double[] t = transforms;
+        int visible = 0;
+        for (int object = 0; object < count; object++) {
+            SurfaceMesh mesh = objectMeshes[object];
+            int base = object * STRIDE;
+            double centreX = t[base + 9] + screenWidth/2;
+            double centreY = t[base + 10] + screenHeight/2;
+            double radius = mesh.getBoundingRadius();
+            // Casts truncate toward zero, so anything above -1 still lands in cell 0
+            if (centreX + radius <= -1 || centreX - radius >= screenWidth ||
+                centreY + radius <= -1 || centreY - radius >= screenHeight) {
+                continue;
+            }
+            visible++;
+
+            double m00 = t[base],     m01 = t[base + 1], m02 = t[base + 2];
+            double m10 = t[base + 3], m11 = t[base + 4], m12 = t[base + 5];
+            double m20 = t[base + 6], m21 = t[base + 7], m22 = t[base + 8];
+            double offsetZ = t[base + 11];
+
+            double[] xs = mesh.vertices.x;
+            double[] ys = mesh.vertices.y;
+            double[] zs = mesh.vertices.z;
+            int[] charIndex = mesh.layers;
+            char[] chars = depthChars;
+            if (shading != null) {
+                charIndex = shadeFaces(shading, mesh, base);
+                chars = faceChars;
+            }
+            for (int n = 0; n < mesh.size(); n++) {
+                double x = xs[n];
+                double y = ys[n];
+                double z = zs[n];
+
+                int screenX = (int)(m00 * x + m01 * y + m02 * z + centreX);
+                int screenY = (int)(m10 * x + m11 * y + m12 * z + centreY);
+
+                if (screenX >= 0 && screenX < screenWidth &&
+                    screenY >= 0 && screenY < screenHeight) {
+
+                    int cell = screenY * screenWidth + screenX;
+                    float depth = (float)(m20 * x + m21 * y + m22 * z + offsetZ);
+                    if (depth < depthBuffer[cell]) {
+                        depthBuffer[cell] = depth;
+
+                        int depthIndex = Math.min(Math.abs(charIndex[n]), chars.length - 1);
+                        screen[cell] = chars[depthIndex];
+                    }
+                }
+            }
+        }
+        visibleCount = visible;
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+    }
+
+    private void rasterizePerspective(FrameBuffer frame, char[] depthChars, Camera camera, Shading shading) {
+        int count = surfaces.size();
+        if (projections.length < count * 16) {
+            projections = new double[transforms.length / STRIDE * 16];
+        }
+
+        long start = FrameMetrics.start();
+        Matrix4 viewProjection = camera.getViewProjection();
+        int visible = 0;
+        for (int object = 0; object < count; object++) {
+            int base = object * STRIDE;
+            if (!inView(camera, transforms[base + 9], transforms[base + 10], transforms[base + 11],
+                        objectMeshes[object].getBoundingRadius(), frame)) {
+                continue;
+            }
+            visible++;
+            viewProjection.multiplyTransform(transforms, base, projections, object * 16);
+            SurfaceMesh mesh = objectMeshes[object];
+            if (shading != null) {
+                PerspectiveRasterizer.rasterizeLayered(mesh, projections, object * 16, camera.near,
+                                                       shadeFaces(shading, mesh, base), faceChars, frame);
+            } else {
+                PerspectiveRasterizer.rasterizeLayered(mesh, projections, object * 16, camera.near,
+                                                       mesh.layers, depthChars, frame);
+            }
+        }
+        visibleCount = visible;
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+    }
+
+    // Fills faceChars for the object at base and returns the face index of each vertex
+    private int[] shadeFaces(Shading shading, SurfaceMesh mesh, int base) {
+        shading.toModelSpace(transforms, base, modelLight);
+        shading.shadeFaces(modelLight, faceChars);
+        return mesh.getFaces();
+    }
+
+    /*
+     * Conservative test for a bounding sphere at world position (x, y, z). A sphere
+     * entirely in front of the near plane is culled; otherwise, when it is wholly
+     * beyond the near plane, its projected extent on each axis is bounded by
+     * dividing the box around it by its nearest and farthest depths.
+     */
+    private static boolean inView(Camera camera, double x, double y, double z, double radius, FrameBuffer frame) {
+        double viewX = x - camera.x;
+        double viewY = y - camera.y;
+        double depth = z - camera.z;
+        if (depth + radius < camera.near) {
+            return false;
+        }
+        double nearest = depth - radius;
+        if (nearest < camera.near) {
+            // Straddles the near plane; the per-vertex test handles it
+            return true;
+        }
+        double farthest = depth + radius;
+        double f = camera.focalLength;
+        return projectedOverlaps(viewX, radius, nearest, farthest, f, frame.width)
+            && projectedOverlaps(viewY, radius, nearest, farthest, f, frame.height);
+    }
+
+    private static boolean projectedOverlaps(double centre, double radius, double nearest, double farthest,
+                                             double focalLength, int screenSize) {
+        double low = centre - radius;
+        double high = centre + radius;
+        // Dividing by the depth that pulls each bound furthest out
+        double min = focalLength * low / (low < 0 ? nearest : farthest) + screenSize/2;
+        double max = focalLength * high / (high > 0 ? nearest : farthest) + screenSize/2;
+        // Casts truncate toward zero, so anything above -1 still lands in cell 0
+        return max > -1 && min < screenSize;
+    }
+
+    public Surface get(int index) {
+        return surfaces.get(index);
+    }
+
+    public int size() {
+        return surfaces.size();
+    }
+
+    // Objects that passed the cull in the last rasterize
+    public int getVisibleCount() {
+        return this.visibleCount;
+    }
+}
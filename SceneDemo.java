@@ -0,0 +1,67 @@
+public class SceneDemo {
+
+    static final char[] DEPTH_CHARS = {'@', '#', '*', '+', '=', '-', ':', '.', ' '};
+
+    // Grid spacing in cells; the grid is wider than the canvas and scrolls through it
+    private static final double SPACING_X = 12.0;
+    private static final double SPACING_Y = 8.0;
+    private static final int GRID_COLUMNS = 40;
+    private static final int GRID_ROWS = 10;
+
+    private static final SurfaceRenderer renderer = new SurfaceRenderer(120, 40);
+    private static final AnimationEngine engine = new AnimationEngine(renderer);
+
+    public static void main(String[] args) {
+        System.out.println("Scene Demo - " + GRID_COLUMNS * GRID_ROWS + " rotating squares");
+        System.out.println();
+
+        gridRotation(buildGrid(GRID_COLUMNS, GRID_ROWS, 5), GRID_COLUMNS);
+    }
+
+    // columns x rows squares of the given width; applyGridRotation places and spins them
+    public static Scene buildGrid(int columns, int rows, int surfaceWidth) {
+        Scene scene = new Scene(1.0, -1, 1, 0.5);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                scene.add(new Surface(new Vector(0, 0, 0), "@", surfaceWidth));
+            }
+        }
+        return scene;
+    }
+
+    // Runs on the shared engine loop; the canvas is fitted to the terminal before each layout
+    public static void gridRotation(Scene scene, int columns) {
+        engine.run("Scene Rotation", 30.0, 1.0 / 30.0, (canvas, time) -> {
+            applyGridRotation(scene, columns, time, canvas.getWidth());
+            return canvas.renderScene(scene, DEPTH_CHARS);
+        }, () -> String.format(" | Objects: %d | Visible: %d", scene.size(), scene.getVisibleCount()));
+    }
+
+    /*
+     * Lays the scene out as a grid with the given number of squares per row, scrolled
+     * left over time and wrapped, and spins each square about its own axis.
+     */
+    public static void applyGridRotation(Scene scene, int columns, double time, int canvasWidth) {
+        int rows = (scene.size() + columns - 1) / columns;
+        double gridWidth = columns * SPACING_X;
+        double scroll = time * 6.0;
+
+        for (int n = 0; n < scene.size(); n++) {
+            int column = n % columns;
+            int row = n / columns;
+
+            double x = column * SPACING_X - scroll;
+            x -= Math.floor(x / gridWidth) * gridWidth;
+
+            Vector position = scene.get(n).getVector();
+            position.i = x - canvasWidth / 2.0 + SPACING_X / 2;
+            position.j = (row - (rows - 1) / 2.0) * SPACING_Y;
+            position.k = 0;
+
+            double axisX = Math.sin(n * 0.7);
+            double axisY = Math.cos(n * 1.3);
+            double axisZ = 0.5;
+            scene.get(n).setRotation(Quaternion.fromAxisAngle(axisX, axisY, axisZ, time * (1.0 + (n % 5) * 0.3)));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+/*
+ * Luminance shading from a single directional light. Brightness is the cosine
+ * between a surface normal and the direction towards the light, mapped half-Lambert
+ * style over the whole ramp: facing the light gives ramp[0], facing straight away
+ * gives the last entry, so shaded faces stay visible unless the ramp ends in a space.
+ *
+ * Renderers move the light into the surface's model space once per frame
+ * (R^T * light), so normals are never rotated per vertex: a face or height-field
+ * normal is dotted with the model-space light directly.
+ */
+public final class Shading {
+    // Slab faces, as numbered by SurfaceMesh.getFaces and ScanlineRasterizer
+    static final int FACE_MIN_LAYER = 0;
+    static final int FACE_MAX_LAYER = 1;
+    static final int FACE_MIN_I = 2;
+    static final int FACE_MAX_I = 3;
+    static final int FACE_MIN_J = 4;
+    static final int FACE_MAX_J = 5;
+    static final int FACE_COUNT = 6;
+
+    // Unit direction towards the light, in screen space (x right, y down, z away from the viewer)
+    final double lightX;
+    final double lightY;
+    final double lightZ;
+    private final char[] ramp;
+
+    public Shading(double lightX, double lightY, double lightZ, char[] ramp) {
+        double length = Math.sqrt(lightX * lightX + lightY * lightY + lightZ * lightZ);
+        if (length == 0) {
+            throw new IllegalArgumentException("Light direction must not be zero");
+        }
+        if (ramp.length == 0) {
+            throw new IllegalArgumentException("Shading ramp must not be empty");
+        }
+        this.lightX = lightX / length;
+        this.lightY = lightY / length;
+        this.lightZ = lightZ / length;
+        this.ramp = ramp.clone();
+    }
+
+    // Lit from the upper left, slightly in front of the surface
+    public static Shading fromUpperLeft(char[] ramp) {
+        return new Shading(-0.5, -0.6, -0.6, ramp);
+    }
+
+    // luminance is the cosine between the normal and the light, in [-1, 1]
+    public char shade(double luminance) {
+        int index = (int)((1 - luminance) * 0.5 * (ramp.length - 1) + 0.5);
+        return ramp[Math.max(0, Math.min(ramp.length - 1, index))];
+    }
+
+    /*
+     * Writes the light and the direction towards the viewer in the model space of
+     * the transform at offset (Surface.copyTransform layout) into out[0..2] and out[3..5].
+     */
+    void toModelSpace(double[] transform, int offset, double[] out) {
+        double m00 = transform[offset],     m01 = transform[offset + 1], m02 = transform[offset + 2];
+        double m10 = transform[offset + 3], m11 = transform[offset + 4], m12 = transform[offset + 5];
+        double m20 = transform[offset + 6], m21 = transform[offset + 7], m22 = transform[offset + 8];
+        // Rotation rows are orthonormal, so the inverse is the transpose
+        out[0] = m00 * lightX + m10 * lightY + m20 * lightZ;
+        out[1] = m01 * lightX + m11 * lightY + m21 * lightZ;
+        out[2] = m02 * lightX + m12 * lightY + m22 * lightZ;
+        out[3] = -m20;
+        out[4] = -m21;
+        out[5] = -m22;
+    }
+
+    // One character per slab face; a face normal is a model axis, so its dot is one component
+    void shadeFaces(double[] modelLight, char[] out) {
+        out[FACE_MIN_LAYER] = shade(-modelLight[2]);
+        out[FACE_MAX_LAYER] = shade(modelLight[2]);
+        out[FACE_MIN_I] = shade(-modelLight[0]);
+        out[FACE_MAX_I] = shade(modelLight[0]);
+        out[FACE_MIN_J] = shade(-modelLight[1]);
+        out[FACE_MAX_J] = shade(modelLight[1]);
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/*
+ * Evaluates amplitude * sin(frequency * input[n] + phase) over a fixed set of inputs
+ * without per-vertex trig. Each distinct base angle frequency * input has its sin and
+ * cos precomputed, and a frame only needs sin/cos of the phase:
+ *
+ *   sin(a + p) = sin(a) * cos(p) + cos(a) * sin(p)
+ *
+ * Inputs closer together than maxError / |frequency| share one base angle, which
+ * keeps the tables small for fields like radial distances. The result then differs
+ * from Math.sin by at most maxError (times the amplitude); with maxError 0 only equal
+ * inputs are shared. For a cosine field, pass phase + Math.PI / 2.
+ */
+public class SineField {
+    private final int count;
+    private final int[] baseIndex;
+    private final double[] baseSin;
+    private final double[] baseCos;
+    // Per-frame values for each base angle, gathered into the output afterwards
+    private final double[] baseValues;
+
+    public SineField(double[] inputs, int count, double frequency, double maxError) {
+        if (count < 0 || count > inputs.length) {
+            throw new IllegalArgumentException("Invalid input count: " + count);
+        }
+        if (maxError < 0) {
+            throw new IllegalArgumentException("maxError must not be negative");
+        }
+        this.count = count;
+
+        double[] sorted = Arrays.copyOf(inputs, count);
+        Arrays.sort(sorted);
+
+        // Greedy grouping over the sorted inputs; each group spans at most the tolerance
+        double tolerance = frequency == 0 ? Double.POSITIVE_INFINITY : maxError / Math.abs(frequency);
+        double[] groupStart = new double[count];
+        double[] groupCentre = new double[count];
+        int groups = 0;
+        int n = 0;
+        while (n < count) {
+            double start = sorted[n];
+            double end = start;
+            while (n < count && sorted[n] - start <= tolerance) {
+                end = sorted[n];
+                n++;
+            }
+            groupStart[groups] = start;
+            groupCentre[groups] = start == end ? start : (start + end) / 2;
+            groups++;
+        }
+
+        baseSin = new double[groups];
+        baseCos = new double[groups];
+        baseValues = new double[groups];
+        for (int g = 0; g < groups; g++) {
+            double angle = frequency * groupCentre[g];
+            baseSin[g] = Math.sin(angle);
+            baseCos[g] = Math.cos(angle);
+        }
+
+        baseIndex = new int[count];
+        for (int v = 0; v < count; v++) {
+            int found = Arrays.binarySearch(groupStart, 0, groups, inputs[v]);
+            // Not a group start: the insertion point is one past the group holding it
+            baseIndex[v] = found >= 0 ? found : -found - 2;
+        }
+    }
+
+    // out[n] = amplitude * sin(frequency * input[n] + phase)
+    public void fill(double phase, double amplitude, double[] out) {
+        evaluateBase(phase, amplitude);
+        for (int n = 0; n < count; n++) {
+            out[n] = baseValues[baseIndex[n]];
+        }
+    }
+
+    // out[n] += amplitude * sin(frequency * input[n] + phase)
+    public void add(double phase, double amplitude, double[] out) {
+        evaluateBase(phase, amplitude);
+        for (int n = 0; n < count; n++) {
+            out[n] += baseValues[baseIndex[n]];
+        }
+    }
+
+    private void evaluateBase(double phase, double amplitude) {
+        double sinPhase = Math.sin(phase) * amplitude;
+        double cosPhase = Math.cos(phase) * amplitude;
+        for (int g = 0; g < baseValues.length; g++) {
+            baseValues[g] = baseSin[g] * cosPhase + baseCos[g] * sinPhase;
+        }
+    }
+
+    public int size() {
+        return this.count;
+    }
+}
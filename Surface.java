@@ -9,6 +9,14 @@ public class Surface {
 
     private final int SURFACE_WIDTH;
 
+    // Combined Z*Y*X rotation, rebuilt only when the angles change
+    private double m00, m01, m02;
+    private double m10, m11, m12;
+    private double m20, m21, m22;
+
+    // A/B/C are recovered from the matrix only when read after setRotation
+    private boolean anglesStale = false;
+
     public Surface(Vector V, String character, int SURFACE_WIDTH) {
         this.V = V;
         this.character = character;
@@ -17,6 +25,7 @@ public class Surface {
         this.A = 0.0;
         this.B = 0.0;
         this.C = 0.0;
+        updateRotationMatrix();
     }
 
     public Surface(Vector V, String character, int SURFACE_WIDTH, double A, double B, double C) {
@@ -26,6 +35,7 @@ public class Surface {
         this.A = A;
         this.B = B;
         this.C = C;
+        updateRotationMatrix();
     }
 
     private double[][] getRotationMatrixX() {
@@ -52,7 +62,7 @@ public class Surface {
         };
     }
 
-    private double[][] multiplyMatrices(double A[][], double B[][]) {
+    static double[][] multiplyMatrices(double A[][], double B[][]) {
         int rowsA = A.length;
         int colsA = A[0].length;
         int rowsB = B.length;
@@ -73,24 +83,106 @@ public class Surface {
         return result;
     }
 
-    public Vector rotateVector(Vector vector) {
+    private void updateRotationMatrix() {
         double[][] rotX = getRotationMatrixX();
         double[][] rotY = getRotationMatrixY();
         double[][] rotZ = getRotationMatrixZ();
         
         double[][] combined = multiplyMatrices(multiplyMatrices(rotZ, rotY), rotX);
 
-        double I = combined[0][0] * vector.i + combined[0][1] * vector.j + combined[0][2] * vector.k;
-        double J = combined[1][0] * vector.i + combined[1][1] * vector.j + combined[1][2] * vector.k;
-        double K = combined[2][0] * vector.i + combined[2][1] * vector.j + combined[2][2] * vector.k;
+        m00 = combined[0][0]; m01 = combined[0][1]; m02 = combined[0][2];
+        m10 = combined[1][0]; m11 = combined[1][1]; m12 = combined[1][2];
+        m20 = combined[2][0]; m21 = combined[2][1]; m22 = combined[2][2];
+    }
+
+    public Vector rotateVector(Vector vector) {
+        double I = m00 * vector.i + m01 * vector.j + m02 * vector.k;
+        double J = m10 * vector.i + m11 * vector.j + m12 * vector.k;
+        double K = m20 * vector.i + m21 * vector.j + m22 * vector.k;
 
         return new Vector(I, J, K);
     }
 
+    public void rotateAll(double[] xs, double[] ys, double[] zs,
+                          double[] outX, double[] outY, double[] outZ, int count) {
+        rotateRange(xs, ys, zs, outX, outY, outZ, 0, count);
+    }
+
+    public void rotateRange(double[] xs, double[] ys, double[] zs,
+                            double[] outX, double[] outY, double[] outZ, int from, int to) {
+        if (from < 0 || from > to) {
+            throw new IllegalArgumentException("Invalid vertex range: " + from + " to " + to);
+        }
+        if (to > xs.length || to > ys.length || to > zs.length ||
+            to > outX.length || to > outY.length || to > outZ.length) {
+            throw new IllegalArgumentException("Vertex arrays are shorter than the requested count");
+        }
+        for (int n = from; n < to; n++) {
+            double x = xs[n];
+            double y = ys[n];
+            double z = zs[n];
+            outX[n] = m00 * x + m01 * y + m02 * z;
+            outY[n] = m10 * x + m11 * y + m12 * z;
+            outZ[n] = m20 * x + m21 * y + m22 * z;
+        }
+    }
+
+    // Writes the 9 matrix entries row by row, then the position, starting at offset
+    void copyTransform(double[] out, int offset) {
+        out[offset]     = m00; out[offset + 1] = m01; out[offset + 2] = m02;
+        out[offset + 3] = m10; out[offset + 4] = m11; out[offset + 5] = m12;
+        out[offset + 6] = m20; out[offset + 7] = m21; out[offset + 8] = m22;
+        out[offset + 9] = V.i; out[offset + 10] = V.j; out[offset + 11] = V.k;
+    }
+
+    public void rotateAll(VertexBuffer in, VertexBuffer out) {
+        out.ensureCapacity(in.size);
+        rotateAll(in.x, in.y, in.z, out.x, out.y, out.z, in.size);
+        out.size = in.size;
+    }
+
     public void setRotationAngles(double A, double B, double C) {
+        if (!anglesStale && A == this.A && B == this.B && C == this.C) {
+            return;
+        }
+        long start = FrameMetrics.start();
         this.A = A;
         this.B = B;
         this.C = C;
+        this.anglesStale = false;
+        updateRotationMatrix();
+        FrameMetrics.record(FrameMetrics.Stage.ANGLE, start);
+    }
+
+    /*
+     * Sets the orientation directly from a quaternion: one conversion to the cached
+     * matrix, with no trig. The quaternion does not need to be exactly unit length.
+     */
+    public void setRotation(Quaternion q) {
+        long start = FrameMetrics.start();
+        double norm = q.dot(q);
+        if (norm == 0) {
+            throw new IllegalArgumentException("Rotation quaternion must not be zero");
+        }
+        double s = 2.0 / norm;
+        double xx = q.x * q.x * s, yy = q.y * q.y * s, zz = q.z * q.z * s;
+        double xy = q.x * q.y * s, xz = q.x * q.z * s, yz = q.y * q.z * s;
+        double wx = q.w * q.x * s, wy = q.w * q.y * s, wz = q.w * q.z * s;
+
+        m00 = 1 - (yy + zz); m01 = xy - wz;       m02 = xz + wy;
+        m10 = xy + wz;       m11 = 1 - (xx + zz); m12 = yz - wx;
+        m20 = xz - wy;       m21 = yz + wx;       m22 = 1 - (xx + yy);
+
+        this.anglesStale = true;
+        FrameMetrics.record(FrameMetrics.Stage.ANGLE, start);
+    }
+
+    // Z*Y*X decomposition of the current matrix, with B in [-pi/2, pi/2]
+    private void updateAnglesFromMatrix() {
+        B = Math.asin(Math.max(-1, Math.min(1, -m20)));
+        A = Math.atan2(m21, m22);
+        C = Math.atan2(m10, m00);
+        anglesStale = false;
     }
     
     public double getVectorI() {
@@ -122,14 +214,23 @@ public class Surface {
     }
     
     public double getRotationA() {
+        if (anglesStale) {
+            updateAnglesFromMatrix();
+        }
         return this.A;
     }
     
     public double getRotationB() {
+        if (anglesStale) {
+            updateAnglesFromMatrix();
+        }
         return this.B;
     }
     
     public double getRotationC() {
+        if (anglesStale) {
+            updateAnglesFromMatrix();
+        }
         return this.C;
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+public class SurfaceMesh {
+    private final int surfaceSize;
+    private final double scale;
+    private final int minLayer;
+    private final int maxLayer;
+    private final double layerSpacing;
+
+    // Model-space vertices in (i, j, layer) order, matching the renderers' loop order
+    final VertexBuffer vertices;
+    final int[] gridI;
+    final int[] gridJ;
+    final int[] layers;
+    // Vertices per (i, j) column; a column's layers are consecutive, lowest first
+    final int columnSize;
+    // Largest distance of any vertex from the origin; rotation cannot move a vertex further
+    private double boundingRadius;
+    // Built on first use by shaded renderers
+    private int[] faces;
+
+    public SurfaceMesh(Surface surface, double scale) {
+        this(surface, scale, 0, 0, 0.0);
+    }
+
+    public SurfaceMesh(Surface surface, double scale, int minLayer, int maxLayer, double layerSpacing) {
+        this(surface, scale, minLayer, maxLayer, layerSpacing, 1, 1, 1);
+    }
+
+    /*
+     * Samples every iStep-th and jStep-th grid point and every layerStep-th layer. The last
+     * grid row and column and the max layer are always kept, so the mesh covers the
+     * same slab and has the same faces at any step.
+     */
+    public SurfaceMesh(Surface surface, double scale, int minLayer, int maxLayer, double layerSpacing,
+                       int iStep, int jStep, int layerStep) {
+        if (maxLayer < minLayer) {
+            throw new IllegalArgumentException("maxLayer must not be smaller than minLayer");
+        }
+        if (iStep <= 0 || jStep <= 0 || layerStep <= 0) {
+            throw new IllegalArgumentException("Sample steps must be positive");
+        }
+        this.surfaceSize = surface.getWidth();
+        this.scale = scale;
+        this.minLayer = minLayer;
+        this.maxLayer = maxLayer;
+        this.layerSpacing = layerSpacing;
+
+        this.columnSize = sampleCount(getLayerCount(), layerStep);
+        int count = sampleCount(surfaceSize, iStep) * sampleCount(surfaceSize, jStep) * columnSize;
+        this.vertices = new VertexBuffer(count);
+        this.gridI = new int[count];
+        this.gridJ = new int[count];
+        this.layers = new int[count];
+
+        for (int i = 0; i < surfaceSize; i = nextSample(i, surfaceSize - 1, iStep)) {
+            for (int j = 0; j < surfaceSize; j = nextSample(j, surfaceSize - 1, jStep)) {
+                for (int layer = minLayer; layer <= maxLayer; layer = nextSample(layer, maxLayer, layerStep)) {
+                    int n = vertices.size;
+                    gridI[n] = i;
+                    gridJ[n] = j;
+                    layers[n] = layer;
+                    vertices.add(
+                        (i - surfaceSize/2.0) * scale,
+                        (j - surfaceSize/2.0) * scale,
+                        layer * layerSpacing
+                    );
+                    boundingRadius = Math.max(boundingRadius, Math.sqrt(
+                        vertices.x[n] * vertices.x[n] + vertices.y[n] * vertices.y[n] + vertices.z[n] * vertices.z[n]));
+                }
+            }
+        }
+    }
+
+    // Samples taken from count positions at the given step, the last one included
+    private static int sampleCount(int count, int step) {
+        return (count - 1) / step + 1 + ((count - 1) % step != 0 ? 1 : 0);
+    }
+
+    // The position after n, clamped to last; steps past last once it has been sampled
+    private static int nextSample(int n, int last, int step) {
+        return n == last ? last + 1 : Math.min(n + step, last);
+    }
+
+    public boolean matches(Surface surface) {
+        return surface.getWidth() == this.surfaceSize;
+    }
+
+    public int size() {
+        return vertices.size;
+    }
+
+    /*
+     * The slab face each vertex lies on, numbered as in Shading: 0 and 1 for the
+     * min and max layer, then 2/3 for min/max i and 4/5 for min/max j. Edge vertices
+     * take the layer faces first; interior vertices take the layer face on their side.
+     */
+    int[] getFaces() {
+        if (faces == null) {
+            int[] result = new int[size()];
+            for (int n = 0; n < result.length; n++) {
+                int layer = layers[n];
+                if (layer == minLayer) result[n] = Shading.FACE_MIN_LAYER;
+                else if (layer == maxLayer) result[n] = Shading.FACE_MAX_LAYER;
+                else if (gridI[n] == 0) result[n] = Shading.FACE_MIN_I;
+                else if (gridI[n] == surfaceSize - 1) result[n] = Shading.FACE_MAX_I;
+                else if (gridJ[n] == 0) result[n] = Shading.FACE_MIN_J;
+                else if (gridJ[n] == surfaceSize - 1) result[n] = Shading.FACE_MAX_J;
+                else result[n] = layer < 0 ? Shading.FACE_MIN_LAYER : Shading.FACE_MAX_LAYER;
+            }
+            faces = result;
+        }
+        return faces;
+    }
+
+    public double getBoundingRadius() {
+        return this.boundingRadius;
+    }
+
+    public int getLayerCount() {
+        return maxLayer - minLayer + 1;
+    }
+
+    public int getSurfaceSize() {
+        return this.surfaceSize;
+    }
+
+    public double getScale() {
+        return this.scale;
+    }
+
+    public int getMinLayer() {
+        return this.minLayer;
+    }
+
+    public int getMaxLayer() {
+        return this.maxLayer;
+    }
+
+    public double getLayerSpacing() {
+        return this.layerSpacing;
+    }
+}
@@ -0,0 +1,621 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Renders surfaces into a canvas it owns. Meshes, rotated vertices and rasterizer
+ * scratch space are cached per instance, so separate renderers can draw at the same
+ * time on different threads; a single renderer is not thread-safe. Every render
+ * method returns the canvas, valid until the next render or resize.
+ */
+public class SurfaceRenderer {
+    private static final double CLASSIC_SCALE = 2.0;
+    private static final int CLASSIC_MIN_LAYER = -6;
+    private static final int CLASSIC_MAX_LAYER = 6;
+    private static final double CLASSIC_LAYER_SPACING = 0.4;
+    // Lowest detail the frame budget can push the adaptive mesh to: samples up to 4 cells apart
+    private static final double MIN_DETAIL = 0.25;
+    // Detail regained per frame that meets its deadline; a miss halves it
+    private static final double DETAIL_RECOVERY = 0.01;
+    private static final char[] SPIRAL_CHARS = {'@', '#', '&', '*', '%', '+', '=', '-', ':', '.', ' '};
+
+    private final FrameBuffer frame;
+
+    // Model-space meshes are built once per surface width; only rotated output changes per frame
+    private SurfaceMesh classicMesh;
+    private SurfaceMesh smoothWaveMesh;
+    // Wave height terms along the two grid diagonals, rebuilt with smoothWaveMesh
+    private SineField waveDiagonal;
+    private SineField waveAntiDiagonal;
+    private SurfaceMesh layeredMesh;
+    private SurfaceMesh waveMesh;
+    private SineField waveField;
+    private SurfaceMesh spiralMesh;
+    private double[] spiralDistances;
+    private SineField spiralField;
+    // Unit vector from the spiral centre per vertex, for the radial slope
+    private double[] spiralRadialI;
+    private double[] spiralRadialJ;
+    private SurfaceMesh projectionMesh;
+    private final VertexBuffer rotated = new VertexBuffer(1024);
+
+    // Thins the orthographic classic mesh to the cells it covers; see detailMesh
+    private boolean adaptiveDetail = false;
+    private double detail = 1.0;
+    // Reduced classic meshes keyed by their steps, rebuilt with classicMesh
+    private final Map<Integer, SurfaceMesh> detailMeshes = new HashMap<>();
+
+    private boolean parallelRendering = false;
+    private ParallelRasterizer parallelRasterizer;
+
+    // Fills the classic slab from its corners instead of splatting every mesh point
+    private boolean scanlineRendering = false;
+    private ScanlineRasterizer scanlineRasterizer;
+
+    // Perspective for the classic and scene renderers; null keeps the orthographic drop of z
+    private Camera camera;
+    private final double[] modelTransform = new double[12];
+    private final double[] modelViewProjection = new double[16];
+
+    // Luminance shading for every renderer, scenes included, but the block projection; null keeps the original characters
+    private Shading shading;
+    private final double[] modelLight = new double[6];
+    private final char[] faceChars = new char[Shading.FACE_COUNT];
+    // Slopes of the height-field surfaces, rebuilt with their meshes
+    private NormalCache smoothWaveNormals;
+    private NormalCache waveNormals;
+    private NormalCache spiralNormals;
+    private char[] vertexChars = new char[0];
+
+    public SurfaceRenderer(int width, int height) {
+        this.frame = new FrameBuffer(width, height);
+    }
+
+    // Same canvas size and settings, but nothing shared, so the two can render on different threads
+    public SurfaceRenderer(SurfaceRenderer settings) {
+        this(settings.getWidth(), settings.getHeight());
+        setParallelRendering(settings.parallelRendering);
+        setScanlineRendering(settings.scanlineRendering);
+        this.adaptiveDetail = settings.adaptiveDetail;
+        this.camera = settings.camera;
+        this.shading = settings.shading;
+    }
+
+    // Keeps the canvas arrays when they are large enough for the new size
+    public void resize(int width, int height) {
+        frame.resize(width, height);
+    }
+
+    /*
+     * Resizes the canvas to the terminal, leaving statusRows lines below it plus
+     * room for the metrics overlay. Returns whether the size changed; when the
+     * terminal size is unknown the canvas keeps its size.
+     */
+    public boolean fitToTerminal(int statusRows) {
+        TerminalSize terminal = TerminalSize.current();
+        if (terminal == null) {
+            return false;
+        }
+        int rows = terminal.rows - statusRows - FrameMetrics.overlayLines();
+        if (rows <= 0 || frame.matches(terminal.columns, rows)) {
+            return false;
+        }
+        frame.resize(terminal.columns, rows);
+        return true;
+    }
+
+    public void setParallelRendering(boolean enabled) {
+        if (enabled && parallelRasterizer == null) {
+            parallelRasterizer = new ParallelRasterizer();
+        }
+        parallelRendering = enabled;
+    }
+
+    // Takes precedence over parallel rendering for the classic renderer
+    public void setScanlineRendering(boolean enabled) {
+        if (enabled && scanlineRasterizer == null) {
+            scanlineRasterizer = new ScanlineRasterizer();
+        }
+        scanlineRendering = enabled;
+    }
+
+    /*
+     * Samples the orthographic classic slab at about one point per covered cell
+     * instead of every grid point and layer, and at fewer when adjustDetail reports
+     * missed deadlines. Scanline rendering and a camera take precedence.
+     */
+    public void setAdaptiveDetail(boolean enabled) {
+        adaptiveDetail = enabled;
+        detail = 1.0;
+    }
+
+    public boolean isAdaptiveDetail() {
+        return this.adaptiveDetail;
+    }
+
+    // Called once per frame: a missed deadline halves the detail, frames on time restore it slowly
+    public void adjustDetail(boolean missedDeadline) {
+        detail = missedDeadline ? Math.max(MIN_DETAIL, detail / 2)
+                                : Math.min(1.0, detail + DETAIL_RECOVERY);
+    }
+
+    public double getDetail() {
+        return this.detail;
+    }
+
+    // Takes precedence over scanline and parallel rendering; those paths are orthographic only
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
+
+    public Camera getCamera() {
+        return this.camera;
+    }
+
+    // Replaces the depth, height and spiral characters with the shading ramp
+    public void setShading(Shading shading) {
+        this.shading = shading;
+    }
+
+    public Shading getShading() {
+        return this.shading;
+    }
+
+    // Moves the light into the surface's model space for this frame
+    private void prepareShading(Surface surface) {
+        surface.copyTransform(modelTransform, 0);
+        shading.toModelSpace(modelTransform, 0, modelLight);
+    }
+
+    // Slab faces are flat, so each needs a single shade per frame
+    private void shadeFaces(Surface surface) {
+        prepareShading(surface);
+        shading.shadeFaces(modelLight, faceChars);
+    }
+
+    private char[] shadeVertices(Surface surface, NormalCache normals) {
+        if (vertexChars.length < normals.size()) {
+            vertexChars = new char[normals.size()];
+        }
+        prepareShading(surface);
+        normals.shade(shading, modelLight, vertexChars);
+        return vertexChars;
+    }
+
+    // Z-buffered layered slab; the nearest point in each cell wins
+    public FrameBuffer renderOptimizedASCII3D(Surface surface, char[] depthChars) {
+        long start = FrameMetrics.start();
+        frame.clear();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        if (shading != null) {
+            shadeFaces(surface);
+        }
+
+        if (scanlineRendering && camera == null) {
+            // Rotating the 8 corners is negligible, so the whole pass counts as rasterize
+            start = FrameMetrics.start();
+            scanlineRasterizer.rasterizeSlab(surface, CLASSIC_SCALE, CLASSIC_MIN_LAYER, CLASSIC_MAX_LAYER,
+                                             CLASSIC_LAYER_SPACING, depthChars,
+                                             shading != null ? faceChars : null, frame);
+            FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+            return frame;
+        }
+
+        if (classicMesh == null || !classicMesh.matches(surface)) {
+            classicMesh = new SurfaceMesh(surface, CLASSIC_SCALE, CLASSIC_MIN_LAYER, CLASSIC_MAX_LAYER,
+                                          CLASSIC_LAYER_SPACING);
+            detailMeshes.clear();
+        }
+        SurfaceMesh mesh = adaptiveDetail && camera == null ? detailMesh(surface) : classicMesh;
+        // Shaded vertices index the per-face characters instead of the depth ramp
+        int[] charIndex = shading != null ? mesh.getFaces() : mesh.layers;
+        char[] chars = shading != null ? faceChars : depthChars;
+
+        if (camera != null) {
+            renderPerspective(surface, charIndex, chars);
+        } else if (parallelRendering) {
+            // The parallel path rotates inside each tile, so transform is counted as rasterize
+            start = FrameMetrics.start();
+            parallelRasterizer.rasterizeLayered(surface, mesh, charIndex, chars, frame);
+            FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+        } else {
+            rasterizeLayered(surface, mesh, charIndex, chars);
+        }
+        return frame;
+    }
+
+    /*
+     * The rotated corner edges of the slab give the screen distance between
+     * neighbouring samples along each mesh axis; over the whole mesh they span its
+     * projected area. Each axis is thinned to the largest power-of-two step that
+     * keeps samples within 1 / detail cells of each other, so an edge-on slab or
+     * layers stacked into one cell cost about one sample per covered cell, without
+     * opening gaps. Steps are powers of two so only a few meshes are ever built.
+     */
+    private SurfaceMesh detailMesh(Surface surface) {
+        surface.copyTransform(modelTransform, 0);
+        double maxSpacing = 1.0 / detail;
+        int lastGrid = classicMesh.getSurfaceSize() - 1;
+        int lastLayer = CLASSIC_MAX_LAYER - CLASSIC_MIN_LAYER;
+        // Screen x and y are the first two rows; z only decides depth
+        int iStep = sampleStep(CLASSIC_SCALE * Math.hypot(modelTransform[0], modelTransform[3]),
+                               maxSpacing, lastGrid);
+        int jStep = sampleStep(CLASSIC_SCALE * Math.hypot(modelTransform[1], modelTransform[4]),
+                               maxSpacing, lastGrid);
+        int layerStep = sampleStep(CLASSIC_LAYER_SPACING * Math.hypot(modelTransform[2], modelTransform[5]),
+                                   maxSpacing, lastLayer);
+        if (iStep == 1 && jStep == 1 && layerStep == 1) {
+            return classicMesh;
+        }
+
+        int key = Integer.numberOfTrailingZeros(iStep) << 16 | Integer.numberOfTrailingZeros(jStep) << 8
+                  | Integer.numberOfTrailingZeros(layerStep);
+        SurfaceMesh mesh = detailMeshes.get(key);
+        if (mesh == null) {
+            mesh = new SurfaceMesh(surface, CLASSIC_SCALE, CLASSIC_MIN_LAYER, CLASSIC_MAX_LAYER,
+                                   CLASSIC_LAYER_SPACING, iStep, jStep, layerStep);
+            detailMeshes.put(key, mesh);
+        }
+        return mesh;
+    }
+
+    // Largest power of two up to maxStep whose spacing stays within maxSpacing; at least 1
+    private static int sampleStep(double spacing, double maxSpacing, int maxStep) {
+        int step = 1;
+        while (step * 2 <= maxStep && step * 2 * spacing <= maxSpacing) {
+            step *= 2;
+        }
+        return step;
+    }
+
+    // The surface's position V translates it in front of the camera
+    private void renderPerspective(Surface surface, int[] charIndex, char[] chars) {
+        long start = FrameMetrics.start();
+        surface.copyTransform(modelTransform, 0);
+        camera.getViewProjection().multiplyTransform(modelTransform, 0, modelViewProjection, 0);
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        start = FrameMetrics.start();
+        PerspectiveRasterizer.rasterizeLayered(classicMesh, modelViewProjection, 0, camera.near,
+                                               charIndex, chars, frame);
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+    }
+
+    // Rotation is folded into the column loop, so the whole pass counts as rasterize
+    private void rasterizeLayered(Surface surface, SurfaceMesh mesh, int[] charIndex, char[] chars) {
+        long start = FrameMetrics.start();
+        surface.copyTransform(modelTransform, 0);
+        ColumnRasterizer.rasterizeColumns(modelTransform, mesh, 0, mesh.size() / mesh.columnSize,
+                                          charIndex, chars, frame.chars, frame.depth, frame.width, frame.height);
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+    }
+
+    // Z-buffered wave surface shaded by height
+    public FrameBuffer renderOptimizedWaveASCII(Surface surface, double time) {
+        long start = FrameMetrics.start();
+        frame.clear();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        if (smoothWaveMesh == null || !smoothWaveMesh.matches(surface)) {
+            smoothWaveMesh = new SurfaceMesh(surface, 1.8);
+
+            int count = smoothWaveMesh.size();
+            double[] sums = new double[count];
+            double[] differences = new double[count];
+            for (int n = 0; n < count; n++) {
+                sums[n] = smoothWaveMesh.gridI[n] + smoothWaveMesh.gridJ[n];
+                differences[n] = smoothWaveMesh.gridI[n] - smoothWaveMesh.gridJ[n];
+            }
+            waveDiagonal = new SineField(sums, count, 0.4, 0);
+            waveAntiDiagonal = new SineField(differences, count, 0.3, 0);
+            smoothWaveNormals = new NormalCache(count, smoothWaveMesh.getScale());
+        }
+
+        // sin((i + j) * 0.4 + time * 4) * 1.5 + cos((i - j) * 0.3 + time * 2) * 0.8
+        start = FrameMetrics.start();
+        waveDiagonal.fill(time * 4, 1.5, smoothWaveMesh.vertices.z);
+        waveAntiDiagonal.add(time * 2 + Math.PI / 2, 0.8, smoothWaveMesh.vertices.z);
+
+        surface.rotateAll(smoothWaveMesh.vertices, rotated);
+
+        char[] shades = null;
+        if (shading != null) {
+            // d/di = 0.6 cos((i + j) * 0.4 + time * 4) - 0.24 sin((i - j) * 0.3 + time * 2); d/dj flips the second term
+            NormalCache normals = smoothWaveNormals;
+            waveDiagonal.fill(time * 4 + Math.PI / 2, 1.5 * 0.4, normals.slopeI);
+            System.arraycopy(normals.slopeI, 0, normals.slopeJ, 0, normals.size());
+            waveAntiDiagonal.add(time * 2, -0.8 * 0.3, normals.slopeI);
+            waveAntiDiagonal.add(time * 2, 0.8 * 0.3, normals.slopeJ);
+            shades = shadeVertices(surface, normals);
+        }
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        start = FrameMetrics.start();
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        char[] screen = frame.chars;
+        float[] depthBuffer = frame.depth;
+        for (int n = 0; n < rotated.size; n++) {
+            double finalWave = smoothWaveMesh.vertices.z[n];
+
+            int screenX = (int)(rotated.x[n] + screenWidth/2);
+            int screenY = (int)(rotated.y[n] + screenHeight/2);
+
+            if (screenX >= 0 && screenX < screenWidth &&
+                screenY >= 0 && screenY < screenHeight) {
+
+                int cell = screenY * screenWidth + screenX;
+                float z = (float) rotated.z[n];
+                if (z < depthBuffer[cell]) {
+                    depthBuffer[cell] = z;
+
+                    char waveChar;
+                    if (shades != null) waveChar = shades[n];
+                    else if (finalWave > 2.0) waveChar = '@';
+                    else if (finalWave > 1.0) waveChar = '#';
+                    else if (finalWave > 0.0) waveChar = '*';
+                    else if (finalWave > -1.0) waveChar = '+';
+                    else if (finalWave > -2.0) waveChar = '-';
+                    else waveChar = '.';
+
+                    screen[cell] = waveChar;
+                }
+            }
+        }
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+        return frame;
+    }
+
+    // Layered slab without a depth test; the first point to reach a cell keeps it
+    public FrameBuffer renderASCII3D(Surface surface, char[] depthChars) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        char[] screen = frame.chars;
+
+        long start = FrameMetrics.start();
+        frame.clearChars();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        if (layeredMesh == null || !layeredMesh.matches(surface)) {
+            layeredMesh = new SurfaceMesh(surface, 1.8, -4, 4, 0.3);
+        }
+
+        start = FrameMetrics.start();
+        surface.rotateAll(layeredMesh.vertices, rotated);
+        int[] charIndex = layeredMesh.layers;
+        if (shading != null) {
+            shadeFaces(surface);
+            charIndex = layeredMesh.getFaces();
+            depthChars = faceChars;
+        }
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        start = FrameMetrics.start();
+        for (int n = 0; n < rotated.size; n++) {
+            int depth = charIndex[n];
+
+            int screenX = (int)(rotated.x[n] + screenWidth/2);
+            int screenY = (int)(rotated.y[n] + screenHeight/2);
+
+            if (screenX >= 0 && screenX < screenWidth &&
+                screenY >= 0 && screenY < screenHeight) {
+
+                int depthIndex = Math.min(Math.abs(depth), depthChars.length - 1);
+                char depthChar = depthChars[depthIndex];
+
+                int cell = screenY * screenWidth + screenX;
+                if (screen[cell] == ' ') {
+                    screen[cell] = depthChar;
+                }
+            }
+        }
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+
+        return frame;
+    }
+
+    // Wave surface without a depth test; the last point to reach a cell keeps it
+    public FrameBuffer renderWaveASCII(Surface surface, double time) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        char[] screen = frame.chars;
+
+        long start = FrameMetrics.start();
+        frame.clearChars();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        if (waveMesh == null || !waveMesh.matches(surface)) {
+            waveMesh = new SurfaceMesh(surface, 1.5);
+
+            double[] sums = new double[waveMesh.size()];
+            for (int n = 0; n < waveMesh.size(); n++) {
+                sums[n] = waveMesh.gridI[n] + waveMesh.gridJ[n];
+            }
+            waveField = new SineField(sums, waveMesh.size(), 0.5, 0);
+            waveNormals = new NormalCache(waveMesh.size(), waveMesh.getScale());
+        }
+
+        // sin((i + j) * 0.5 + time * 3) * 2
+        start = FrameMetrics.start();
+        waveField.fill(time * 3, 2, waveMesh.vertices.z);
+
+        surface.rotateAll(waveMesh.vertices, rotated);
+
+        char[] shades = null;
+        if (shading != null) {
+            // d/di = d/dj = cos((i + j) * 0.5 + time * 3)
+            waveField.fill(time * 3 + Math.PI / 2, 2 * 0.5, waveNormals.slopeI);
+            System.arraycopy(waveNormals.slopeI, 0, waveNormals.slopeJ, 0, waveNormals.size());
+            shades = shadeVertices(surface, waveNormals);
+        }
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        start = FrameMetrics.start();
+        for (int n = 0; n < rotated.size; n++) {
+            double wave = waveMesh.vertices.z[n];
+
+            int screenX = (int)(rotated.x[n] + screenWidth/2);
+            int screenY = (int)(rotated.y[n] + screenHeight/2);
+
+            if (screenX >= 0 && screenX < screenWidth &&
+                screenY >= 0 && screenY < screenHeight) {
+
+                char waveChar;
+                if (shades != null) waveChar = shades[n];
+                else if (wave > 1.5) waveChar = '@';
+                else if (wave > 0.5) waveChar = '#';
+                else if (wave > -0.5) waveChar = '*';
+                else if (wave > -1.5) waveChar = '+';
+                else waveChar = '.';
+
+                screen[screenY * screenWidth + screenX] = waveChar;
+            }
+        }
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+
+        return frame;
+    }
+
+    public FrameBuffer renderSpiralASCII(Surface surface, double spiral) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        char[] screen = frame.chars;
+
+        long start = FrameMetrics.start();
+        frame.clearChars();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        if (spiralMesh == null || !spiralMesh.matches(surface)) {
+            spiralMesh = new SurfaceMesh(surface, 1.6);
+
+            // The distance field depends only on the grid, so it is cached with the mesh
+            int surfaceSize = surface.getWidth();
+            spiralDistances = new double[spiralMesh.size()];
+            spiralRadialI = new double[spiralMesh.size()];
+            spiralRadialJ = new double[spiralMesh.size()];
+            for (int n = 0; n < spiralMesh.size(); n++) {
+                int i = spiralMesh.gridI[n];
+                int j = spiralMesh.gridJ[n];
+                double distance = Math.sqrt((i - surfaceSize/2.0) * (i - surfaceSize/2.0) +
+                                            (j - surfaceSize/2.0) * (j - surfaceSize/2.0));
+                spiralDistances[n] = distance;
+                // The centre is a crest or trough, so its slope is zero
+                spiralRadialI[n] = distance == 0 ? 0 : (i - surfaceSize/2.0) / distance;
+                spiralRadialJ[n] = distance == 0 ? 0 : (j - surfaceSize/2.0) / distance;
+            }
+            // Symmetric grids repeat most radii, so the field keeps far fewer base angles than vertices
+            spiralField = new SineField(spiralDistances, spiralMesh.size(), 0.8, 0);
+            spiralNormals = new NormalCache(spiralMesh.size(), spiralMesh.getScale());
+        }
+
+        // sin(distance * 0.8 + spiral) * 1.5
+        start = FrameMetrics.start();
+        spiralField.fill(spiral, 1.5, spiralMesh.vertices.z);
+
+        surface.rotateAll(spiralMesh.vertices, rotated);
+
+        char[] shades = null;
+        if (shading != null) {
+            // The slope along the radius, 1.2 cos(distance * 0.8 + spiral), split onto i and j
+            double[] slopeI = spiralNormals.slopeI;
+            double[] slopeJ = spiralNormals.slopeJ;
+            spiralField.fill(spiral + Math.PI / 2, 1.5 * 0.8, slopeI);
+            for (int n = 0; n < spiralNormals.size(); n++) {
+                slopeJ[n] = slopeI[n] * spiralRadialJ[n];
+                slopeI[n] *= spiralRadialI[n];
+            }
+            shades = shadeVertices(surface, spiralNormals);
+        }
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        start = FrameMetrics.start();
+        for (int n = 0; n < rotated.size; n++) {
+            double distance = spiralDistances[n];
+
+            int screenX = (int)(rotated.x[n] + screenWidth/2);
+            int screenY = (int)(rotated.y[n] + screenHeight/2);
+
+            if (screenX >= 0 && screenX < screenWidth &&
+                screenY >= 0 && screenY < screenHeight) {
+
+                if (shades != null) {
+                    screen[screenY * screenWidth + screenX] = shades[n];
+                } else {
+                    int charIndex = (int)(distance + spiral * 2) % SPIRAL_CHARS.length;
+                    screen[screenY * screenWidth + screenX] = SPIRAL_CHARS[Math.abs(charIndex)];
+                }
+            }
+        }
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+
+        return frame;
+    }
+
+    // Block-character slab; the middle layer is the surface itself and always wins its cell
+    public FrameBuffer render3DProjection(Surface surface) {
+        int screenWidth = frame.width;
+        int screenHeight = frame.height;
+        char[] screen = frame.chars;
+
+        long start = FrameMetrics.start();
+        frame.clearChars();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        if (projectionMesh == null || !projectionMesh.matches(surface)) {
+            projectionMesh = new SurfaceMesh(surface, 2.0, -2, 2, 0.5);
+        }
+
+        start = FrameMetrics.start();
+        surface.rotateAll(projectionMesh.vertices, rotated);
+        FrameMetrics.record(FrameMetrics.Stage.TRANSFORM, start);
+
+        start = FrameMetrics.start();
+        for (int n = 0; n < rotated.size; n++) {
+            int depth = projectionMesh.layers[n];
+
+            int screenX = (int)(rotated.x[n] + screenWidth/2);
+            int screenY = (int)(rotated.y[n] + screenHeight/2);
+
+            if (screenX < 0 || screenX >= screenWidth ||
+                screenY < 0 || screenY >= screenHeight) {
+                continue;
+            }
+            int cell = screenY * screenWidth + screenX;
+
+            if (depth == 0) {
+                screen[cell] = '█';
+            } else {
+                // Use different characters for different depths
+                char depthChar = Math.abs(depth) == 1 ? '▓' : '░';
+                if (screen[cell] == ' ') {
+                    screen[cell] = depthChar;
+                }
+            }
+        }
+        FrameMetrics.record(FrameMetrics.Stage.RASTERIZE, start);
+
+        return frame;
+    }
+
+    // Every surface in the scene shares the canvas and its depth buffer
+    public FrameBuffer renderScene(Scene scene, char[] depthChars) {
+        long start = FrameMetrics.start();
+        frame.clear();
+        FrameMetrics.record(FrameMetrics.Stage.CLEAR, start);
+
+        scene.rasterize(frame, depthChars, camera, shading);
+        return frame;
+    }
+
+    public FrameBuffer getFrameBuffer() {
+        return this.frame;
+    }
+
+    public int getWidth() {
+        return frame.width;
+    }
+
+    public int getHeight() {
+        return frame.height;
+    }
+}
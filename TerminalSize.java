@@ -0,0 +1,133 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * The size of the controlling terminal. Java has no portable terminal size API, so
+ * this asks `stty size` against /dev/tty and falls back to the COLUMNS and LINES
+ * variables. current() returns null when neither is available, e.g. when output is
+ * piped.
+ *
+ * Each query forks a process, which takes milliseconds, so render loops never wait
+ * for one: current() returns the last known size and, at most once a second, starts
+ * a refresh on a short-lived daemon thread. Nothing is spawned while no loop asks.
+ */
+public final class TerminalSize {
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+
+    private static volatile TerminalSize latest;
+    private static volatile boolean started;
+    private static volatile long lastRefresh;
+    private static final AtomicBoolean refreshing = new AtomicBoolean();
+
+    final int columns;
+    final int rows;
+
+    public TerminalSize(int columns, int rows) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Terminal size must be positive");
+        }
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    // The first call blocks for one query; later calls may be up to a second stale
+    public static TerminalSize current() {
+        if (!started) {
+            queryFirst();
+        } else if (latest != null && System.nanoTime() - lastRefresh >= REFRESH_NANOS
+                   && refreshing.compareAndSet(false, true)) {
+            Thread refresher = new Thread(TerminalSize::refresh, "terminal-size");
+            refresher.setDaemon(true);
+            refresher.start();
+        }
+        return latest;
+    }
+
+    // With no terminal at first use the size stays unknown, instead of spawning stty forever
+    private static synchronized void queryFirst() {
+        if (started) {
+            return;
+        }
+        latest = query();
+        lastRefresh = System.nanoTime();
+        started = true;
+    }
+
+    private static void refresh() {
+        try {
+            TerminalSize size = query();
+            if (size != null) {
+                latest = size;
+            }
+        } finally {
+            lastRefresh = System.nanoTime();
+            refreshing.set(false);
+        }
+    }
+
+    static TerminalSize query() {
+        TerminalSize size = queryStty();
+        return size != null ? size : fromEnvironment();
+    }
+
+    private static TerminalSize queryStty() {
+        File tty = new File("/dev/tty");
+        if (!tty.exists()) {
+            return null;
+        }
+        try {
+            Process process = new ProcessBuilder("stty", "size")
+                .redirectInput(tty)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.US_ASCII).trim();
+            }
+            if (process.waitFor() != 0) {
+                return null;
+            }
+            // "rows columns"
+            String[] parts = output.split("\\s+");
+            return parts.length == 2 ? parse(parts[1], parts[0]) : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static TerminalSize fromEnvironment() {
+        return parse(System.getenv("COLUMNS"), System.getenv("LINES"));
+    }
+
+    private static TerminalSize parse(String columns, String rows) {
+        if (columns == null || rows == null) {
+            return null;
+        }
+        try {
+            int c = Integer.parseInt(columns.trim());
+            int r = Integer.parseInt(rows.trim());
+            return c > 0 && r > 0 ? new TerminalSize(c, r) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public int getColumns() {
+        return this.columns;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    @Override
+    public String toString() {
+        return columns + "x" + rows;
+    }
+}
@@ -0,0 +1,43 @@
+import java.util.Arrays;
+
+public class VertexBuffer {
+    double[] x;
+    double[] y;
+    double[] z;
+    int size;
+
+    public VertexBuffer(int capacity) {
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.z = new double[capacity];
+        this.size = 0;
+    }
+
+    // Grows the backing arrays only when needed so steady-state frames never allocate
+    public void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            int newCapacity = Math.max(capacity, x.length * 2);
+            x = Arrays.copyOf(x, newCapacity);
+            y = Arrays.copyOf(y, newCapacity);
+            z = Arrays.copyOf(z, newCapacity);
+        }
+    }
+
+    public void add(double px, double py, double pz) {
+        if (size == x.length) {
+            ensureCapacity(size + 1);
+        }
+        x[size] = px;
+        y[size] = py;
+        z[size] = pz;
+        size++;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
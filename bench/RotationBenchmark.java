@@ -0,0 +1,290 @@
+package rotation;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Run with `make bench`. The Makefile copies the sources into package "rotation",
+ * because JMH cannot generate code for benchmarks in the default package.
+ *
+ * screenSize sizes the canvas of every draw routine, so each result is measured at
+ * the size it is labelled with.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotationBenchmark {
+
+    private static final Camera PERSPECTIVE = Camera.atDistance(60);
+    private static final Shading LIGHT = Shading.fromUpperLeft(ASCIIRotationVariants.DEPTH_CHARS_DENSE);
+
+    @State(Scope.Thread)
+    public static class MathState {
+        Surface surface;
+        Vector vector;
+        double[][] matrixA;
+        double[][] matrixB;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            surface = new Surface(new Vector(0, 0, 0), "@", 18, 0.3, 1.1, -0.4);
+            vector = new Vector(3.0, -2.0, 1.5);
+            matrixA = new double[][] {{0.8, -0.6, 0}, {0.6, 0.8, 0}, {0, 0, 1}};
+            matrixB = new double[][] {{1, 0, 0}, {0, 0.5, -0.87}, {0, 0.87, 0.5}};
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RenderState {
+        @Param({"18", "100", "500"})
+        public int surfaceWidth;
+
+        @Param({"80x50", "240x120"})
+        public String screenSize;
+
+        Surface surface;
+        double time;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            String[] size = screenSize.split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            SmoothASCIIRotation.setScreenSize(width, height);
+            ASCIIRotationVariants.setScreenSize(width, height);
+            InfiniteRotationDemo.setScreenSize(width, height);
+            FrameWriter.redirectStdout(new NullChannel());
+
+            surface = new Surface(new Vector(0, 0, 0), "@", surfaceWidth);
+            time = 0;
+        }
+
+        // Advances the rotation every invocation so the z-test and delta encoder see real motion
+        void advance() {
+            time += 1.0 / 60.0;
+            SmoothASCIIRotation.applyUltraSmoothRotation(surface, time);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SceneState {
+        // Rows of 40; the grid is four canvases wide, so about three quarters is culled
+        @Param({"40", "400", "4000"})
+        public int objects;
+
+        Scene scene;
+        SurfaceRenderer renderer;
+        double time;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            scene = SceneDemo.buildGrid(40, objects / 40, 5);
+            renderer = new SurfaceRenderer(120, 40);
+            time = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ModeState {
+        @Param({"ULTRA_SMOOTH", "INTERPOLATED", "HIGH_FPS_WAVE", "CLASSIC", "DENSE", "WAVE_PATTERN",
+                "SPIRAL", "INFINITE", "INFINITE_PATTERN", "BOUNCING"})
+        public String mode;
+
+        AnimationEngine.Mode engineMode;
+        Animation animation;
+        Surface surface;
+        SurfaceRenderer canvas;
+        long frame;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            engineMode = AnimationEngine.Mode.parse(mode);
+            animation = engineMode.newAnimation();
+            surface = new Surface(new Vector(0, 0, 0), "@", 18);
+            canvas = new SurfaceRenderer(80, 50);
+            frame = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CacheState {
+        FrameCache cache;
+        FrameCache.FrameSource frames;
+        int frame;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            FrameWriter.redirectStdout(new NullChannel());
+            Surface surface = new Surface(new Vector(0, 0, 0), "@", 20);
+            SurfaceRenderer renderer = new SurfaceRenderer(80, 50);
+            frames = k -> {
+                InfiniteRotationDemo.applyInfiniteRotation(surface, k * Math.PI / 30);
+                return renderer.render3DProjection(surface);
+            };
+            cache = new FrameCache(61, FrameCache.DEFAULT_MAX_BYTES);
+            cache.prerender(() -> frames, false);
+            frame = 0;
+        }
+    }
+
+    @Benchmark
+    public Vector rotateVector(MathState state) {
+        return state.surface.rotateVector(state.vector);
+    }
+
+    @Benchmark
+    public double[][] multiplyMatrices(MathState state) {
+        return Surface.multiplyMatrices(state.matrixA, state.matrixB);
+    }
+
+    @Benchmark
+    public void drawOptimizedASCII3D(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setScanlineRendering(false);
+        SmoothASCIIRotation.setAdaptiveDetail(false);
+        SmoothASCIIRotation.setCamera(null);
+        SmoothASCIIRotation.setShading(null);
+        SmoothASCIIRotation.drawOptimizedASCII3D(state.surface, SmoothASCIIRotation.DEPTH_CHARS_CLASSIC);
+    }
+
+    // Cost should follow screenSize and stay flat across surfaceWidth
+    @Benchmark
+    public void drawOptimizedASCII3DScanline(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setScanlineRendering(true);
+        SmoothASCIIRotation.setAdaptiveDetail(false);
+        SmoothASCIIRotation.setCamera(null);
+        SmoothASCIIRotation.setShading(null);
+        SmoothASCIIRotation.drawOptimizedASCII3D(state.surface, SmoothASCIIRotation.DEPTH_CHARS_CLASSIC);
+    }
+
+    // Samples follow the covered cells, so cost should grow far slower than surfaceWidth squared
+    @Benchmark
+    public void drawOptimizedASCII3DAdaptive(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setScanlineRendering(false);
+        SmoothASCIIRotation.setAdaptiveDetail(true);
+        SmoothASCIIRotation.setCamera(null);
+        SmoothASCIIRotation.setShading(null);
+        SmoothASCIIRotation.drawOptimizedASCII3D(state.surface, SmoothASCIIRotation.DEPTH_CHARS_CLASSIC);
+    }
+
+    // Should match drawOptimizedASCII3D: the matrix is built once per frame, not per vertex
+    @Benchmark
+    public void drawOptimizedASCII3DPerspective(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setScanlineRendering(false);
+        SmoothASCIIRotation.setAdaptiveDetail(false);
+        SmoothASCIIRotation.setCamera(PERSPECTIVE);
+        SmoothASCIIRotation.setShading(null);
+        SmoothASCIIRotation.drawOptimizedASCII3D(state.surface, SmoothASCIIRotation.DEPTH_CHARS_CLASSIC);
+    }
+
+    // Shading costs six lookups per frame, not a normal rotation per vertex
+    @Benchmark
+    public void drawOptimizedASCII3DShaded(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setScanlineRendering(false);
+        SmoothASCIIRotation.setAdaptiveDetail(false);
+        SmoothASCIIRotation.setCamera(null);
+        SmoothASCIIRotation.setShading(LIGHT);
+        SmoothASCIIRotation.drawOptimizedASCII3D(state.surface, SmoothASCIIRotation.DEPTH_CHARS_CLASSIC);
+    }
+
+    @Benchmark
+    public void drawOptimizedWaveASCII(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setShading(null);
+        SmoothASCIIRotation.drawOptimizedWaveASCII(state.surface, state.time);
+    }
+
+    // Slopes come from the SineField tables; the only per-vertex extra is one square root
+    @Benchmark
+    public void drawOptimizedWaveASCIIShaded(RenderState state) {
+        state.advance();
+        SmoothASCIIRotation.setShading(LIGHT);
+        SmoothASCIIRotation.drawOptimizedWaveASCII(state.surface, state.time);
+    }
+
+    @Benchmark
+    public void drawASCII3D(RenderState state) {
+        state.advance();
+        ASCIIRotationVariants.drawASCII3D(state.surface, ASCIIRotationVariants.DEPTH_CHARS_DENSE);
+    }
+
+    @Benchmark
+    public void drawWaveASCII(RenderState state) {
+        state.advance();
+        ASCIIRotationVariants.drawWaveASCII(state.surface, state.time);
+    }
+
+    @Benchmark
+    public void drawSpiralASCII(RenderState state) {
+        state.advance();
+        ASCIIRotationVariants.drawSpiralASCII(state.surface, state.time);
+    }
+
+    @Benchmark
+    public void draw3DProjection(RenderState state) {
+        state.advance();
+        InfiniteRotationDemo.draw3DProjection(state.surface);
+    }
+
+    // One engine frame of any mode without output or pacing; periodic modes are not cached here
+    @Benchmark
+    public FrameBuffer renderMode(ModeState state) {
+        double time = state.engineMode.timeAt(state.frame++);
+        state.animation.apply(state.surface, time);
+        return state.engineMode.render(state.canvas, state.surface, time);
+    }
+
+    // Steady state of infiniteRotation: compare with draw3DProjection
+    @Benchmark
+    public void replayCachedFrame(CacheState state) {
+        int next = (state.frame + 1) % 61;
+        FrameWriter.stdout().write(state.cache.step(state.frame, next, state.frames));
+        state.frame = next;
+    }
+
+    // Includes laying out and spinning every object, which a real scene update would also pay
+    @Benchmark
+    public FrameBuffer renderScene(SceneState state) {
+        state.time += 1.0 / 30.0;
+        SceneDemo.applyGridRotation(state.scene, 40, state.time, state.renderer.getWidth());
+        return state.renderer.renderScene(state.scene, SceneDemo.DEPTH_CHARS);
+    }
+
+    private static class NullChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int written = src.remaining();
+            src.position(src.limit());
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}